@@ -24,8 +24,9 @@ import java.nio.charset.CodingErrorAction;
 
 import org.apache.commons.codec.binary.Base64;
 
+import polybuf.core.CharSequenceStringParser;
 import polybuf.core.ParseException;
-import polybuf.core.StringParser;
+import polybuf.core.util.Base64Codec;
 
 import com.google.common.base.Charsets;
 import com.google.protobuf.ByteString;
@@ -34,7 +35,7 @@ import com.google.protobuf.ByteString;
  * Parser that handles both strict and compatible parsing of strings.
  * 
  */
-public class HeuristicStringParser implements StringParser {
+public class HeuristicStringParser implements CharSequenceStringParser {
 
   private static final ThreadLocal<CharsetDecoder> strictUtf8Decoder = new ThreadLocal<CharsetDecoder>() {
     @Override
@@ -47,22 +48,45 @@ public class HeuristicStringParser implements StringParser {
   };
 
   /**
-   * Parses bytes from the string.
+   * Parses bytes from the string. Equivalent to {@link #asStrictBytes(CharSequence)}.
+   * 
+   * @throws ParseException if string is not strictly Base64 encoded
+   */
+  @Override
+  public ByteString asStrictBytes(String string) {
+    return asStrictBytes((CharSequence) string);
+  }
+
+  /**
+   * Parses bytes from the characters.
    * <p>
    * We store all bytes as Base64 encoded strings so parsing requires us to unencode.
    * 
    * @throws ParseException if string is not strictly Base64 encoded
    */
   @Override
-  public ByteString asStrictBytes(String string) {
+  public ByteString asStrictBytes(CharSequence chars) {
     // Base64 decoder is not strict. Verify strict encoding
-    byte[] bytes = string.getBytes(Charsets.UTF_8);
-    if (Base64Classifier.isStrictBase64(bytes)) {
-      return ByteString.copyFrom(Base64.decodeBase64(bytes));
+    byte[] bytes = asciiBytes(chars);
+    if (bytes != null && Base64Classifier.isStrictBase64(bytes)) {
+      return Base64Codec.decode(chars);
     }
     throw new ParseException("Non-base64 encoding detected for bytes");
   }
 
+  // Base64 is all ASCII, so anything else can't be strictly encoded
+  private static byte[] asciiBytes(CharSequence chars) {
+    byte[] bytes = new byte[chars.length()];
+    for (int i = 0; i < bytes.length; ++i) {
+      char c = chars.charAt(i);
+      if (c >= 128) {
+        return null;
+      }
+      bytes[i] = (byte) c;
+    }
+    return bytes;
+  }
+
   /**
    * Parse the incoming string with a target field type of String.
    * <p>
@@ -0,0 +1,586 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.codegen;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import polybuf.core.MessageCodec;
+import polybuf.core.config.RootMessage;
+import polybuf.core.config.SerializerConfig;
+import polybuf.core.util.Reflection;
+
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.GeneratedMessage;
+import com.google.protobuf.Message;
+
+/**
+ * Generates the Java source of {@link MessageCodec}s for the root messages of a serializer configuration, and all the
+ * message types they depend on.
+ * <p>
+ * The generated codecs call the typed accessors and setters of the protobuf generated classes directly, so writing and
+ * reading those messages involves no reflection. The codecs are nested in a single generated class with a static
+ * {@code registerAll} method, for example
+ * 
+ * <pre>
+ * SerializerConfig config = SerializerConfig.builder(AddressBookProtos.class).addRoot(AddressBook.class).build();
+ * new CodecGenerator(config).writeSource(new File(&quot;src/main/java&quot;), &quot;com.example.tutorial&quot;,
+ *     &quot;AddressBookCodecs&quot;);
+ * </pre>
+ * 
+ * generates {@code com.example.tutorial.AddressBookCodecs}, which is registered at startup with
+ * 
+ * <pre>
+ * SerializerConfig config = AddressBookCodecs.registerAll(
+ *     SerializerConfig.builder(AddressBookProtos.class).addRoot(AddressBook.class)).build();
+ * </pre>
+ * 
+ * The generated class must be recompiled whenever the proto files change. Generation runs on the compiled protobuf
+ * classes, so it is typically done from the command line with {@link #main} (e.g. by the {@code exec-maven-plugin})
+ * after the protobuf classes are compiled, or in a module downstream of them. Configurations other than the default
+ * one for the outer class are passed to {@link #main} as a factory class.
+ * <p>
+ * Codecs are only generated for messages that can be written without reflection: messages declaring extension ranges,
+ * groups, or fields of such messages are left to the reflective writers, as are any fields the configuration cannot
+ * serialize. The serialized field names are those of the configuration used for generation, and registering the codecs
+ * with a configuration whose field naming strategy produces other names fails.
+ */
+public class CodecGenerator {
+  private final SerializerConfig config;
+  // messages with a codec, in generation order
+  private final Map<Descriptor, Class<?>> messageClasses = new LinkedHashMap<Descriptor, Class<?>>();
+  private final Map<Descriptor, String> codecNames = new LinkedHashMap<Descriptor, String>();
+
+  public CodecGenerator(SerializerConfig config) {
+    this.config = config;
+    for (RootMessage root : config.getRoots()) {
+      Message instance = root.newBuilder().getDefaultInstanceForType();
+      if (instance instanceof GeneratedMessage) {
+        collect(instance.getClass());
+      }
+    }
+    removeUnsupported();
+    nameCodecs();
+  }
+
+  /**
+   * Generate codecs from the command line.
+   * <p>
+   * The arguments are the name of the generated outer class, the source directory to write to and, optionally, the
+   * fully qualified name of the generated codec class. The codec class defaults to the outer class name with a
+   * {@code Codecs} suffix. The configuration is the default one for the outer class unless the arguments are preceded
+   * by {@code -config} and the name of a class implementing {@code Callable<SerializerConfig>} with a public no-arg
+   * constructor, which creates the configuration with the roots, extensions and naming strategies the codecs will be
+   * registered with.
+   */
+  public static void main(String[] args) throws Exception {
+    String configFactory = null;
+    if (args.length > 1 && args[0].equals("-config")) {
+      configFactory = args[1];
+      args = Arrays.copyOfRange(args, 2, args.length);
+    }
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("usage: CodecGenerator [-config <config factory class>] <outer class> <source directory> "
+          + "[<codec class>]");
+      System.exit(1);
+    }
+    Class<?> outerClass = loadClass(args[0]);
+    String codecClass = args.length > 2 ? args[2] : outerClass.getName() + "Codecs";
+    int dot = codecClass.lastIndexOf('.');
+    SerializerConfig config = configFactory == null ? SerializerConfig.of(outerClass) : config(configFactory);
+    new CodecGenerator(config).writeSource(new File(args[1]), dot < 0 ? "" : codecClass.substring(0, dot),
+        codecClass.substring(dot + 1));
+  }
+
+  private static SerializerConfig config(String configFactory) throws Exception {
+    Object factory = loadClass(configFactory).newInstance();
+    if (!(factory instanceof Callable)) {
+      throw new IllegalArgumentException("config factory " + configFactory + " does not implement Callable");
+    }
+    Object config = ((Callable<?>) factory).call();
+    if (!(config instanceof SerializerConfig)) {
+      throw new IllegalArgumentException("config factory " + configFactory + " did not return a SerializerConfig");
+    }
+    return (SerializerConfig) config;
+  }
+
+  private static Class<?> loadClass(String name) throws ClassNotFoundException {
+    return Class.forName(name, true, Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * Whether a codec is generated for the message type.
+   */
+  public boolean hasCodec(Descriptor message) {
+    return codecNames.containsKey(message);
+  }
+
+  /**
+   * Write the generated class to its package directory under the source directory, returning the file written.
+   */
+  public File writeSource(File sourceDirectory, String packageName, String className) throws IOException {
+    File directory = packageName.isEmpty() ? sourceDirectory : new File(sourceDirectory, packageName.replace('.',
+        File.separatorChar));
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("cannot create directory " + directory);
+    }
+    File file = new File(directory, className + ".java");
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    try {
+      writer.write(generate(packageName, className));
+    }
+    finally {
+      writer.close();
+    }
+    return file;
+  }
+
+  /**
+   * Generate the source of the codec class.
+   */
+  public String generate(String packageName, String className) {
+    SourceBuilder source = new SourceBuilder();
+    source.line("// Generated by polybuf-java-codegen.  DO NOT EDIT!");
+    source.line();
+    if (!packageName.isEmpty()) {
+      source.line("package " + packageName + ";");
+      source.line();
+    }
+    source.line("public final class " + className + " {");
+    source.indent();
+    source.line("private " + className + "() {");
+    source.line("}");
+    source.line();
+    source.line("public static polybuf.core.config.SerializerConfig.Builder registerAll(");
+    source.line("    polybuf.core.config.SerializerConfig.Builder builder) {");
+    source.indent();
+    for (String codecName : codecNames.values()) {
+      source.line("builder.registerCodec(new " + codecName + "());");
+    }
+    source.line("return builder;");
+    source.outdent();
+    source.line("}");
+    for (Map.Entry<Descriptor, String> codec : codecNames.entrySet()) {
+      source.line();
+      generateCodec(source, codec.getKey(), codec.getValue());
+    }
+    source.outdent();
+    source.line("}");
+    return source.toString();
+  }
+
+  private void collect(Class<?> messageClass) {
+    Descriptor descriptor = descriptor(messageClass);
+    if (descriptor == null || messageClasses.containsKey(descriptor)) {
+      return;
+    }
+    messageClasses.put(descriptor, messageClass);
+    for (FieldDescriptor field : descriptor.getFields()) {
+      if (field.getType() == FieldDescriptor.Type.MESSAGE) {
+        Class<?> fieldClass = javaType(messageClass, field);
+        if (fieldClass != null) {
+          collect(fieldClass);
+        }
+      }
+    }
+  }
+
+  private void removeUnsupported() {
+    Set<Descriptor> unsupported = new HashSet<Descriptor>();
+    for (Map.Entry<Descriptor, Class<?>> message : messageClasses.entrySet()) {
+      if (!isSupported(message.getKey(), message.getValue())) {
+        unsupported.add(message.getKey());
+      }
+    }
+    // messages with fields of unsupported types are unsupported as well
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (Descriptor descriptor : messageClasses.keySet()) {
+        if (unsupported.contains(descriptor)) {
+          continue;
+        }
+        for (FieldDescriptor field : descriptor.getFields()) {
+          if (field.getType() == FieldDescriptor.Type.MESSAGE
+              && (unsupported.contains(field.getMessageType()) || !messageClasses.containsKey(field.getMessageType()))) {
+            unsupported.add(descriptor);
+            changed = true;
+            break;
+          }
+        }
+      }
+    }
+    messageClasses.keySet().removeAll(unsupported);
+  }
+
+  private boolean isSupported(Descriptor descriptor, Class<?> messageClass) {
+    if (descriptor.toProto().getExtensionRangeCount() > 0) {
+      // extensions can only be discovered through getAllFields
+      return false;
+    }
+    Class<?> builderClass = builderClass(messageClass);
+    if (builderClass == null) {
+      return false;
+    }
+    for (FieldDescriptor field : descriptor.getFields()) {
+      if (field.getType() == FieldDescriptor.Type.GROUP || config.serializedName(field) == null) {
+        return false;
+      }
+      Class<?> type = javaType(messageClass, field);
+      if (type == null) {
+        return false;
+      }
+      String name = Reflection.accessorName(field);
+      boolean hasAccessors = field.isRepeated()
+          ? hasMethod(messageClass, "get" + name + "Count") && hasMethod(messageClass, "get" + name + "List")
+              && hasMethod(builderClass, "add" + name, type)
+          : hasMethod(messageClass, "has" + name) && hasMethod(builderClass, "set" + name, type);
+      if (!hasAccessors) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void nameCodecs() {
+    Set<String> names = new HashSet<String>();
+    for (Map.Entry<Descriptor, Class<?>> message : messageClasses.entrySet()) {
+      // the nesting of the class within its package, e.g. AddressBookProtos_Person_PhoneNumber
+      Class<?> messageClass = message.getValue();
+      String packageName = packageName(messageClass);
+      String base = messageClass.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+          .replace('$', '_') + "Codec";
+      String name = base;
+      for (int i = 2; !names.add(name); ++i) {
+        name = base + i;
+      }
+      codecNames.put(message.getKey(), name);
+    }
+  }
+
+  private void generateCodec(SourceBuilder source, Descriptor descriptor, String codecName) {
+    Class<?> messageClass = messageClasses.get(descriptor);
+    String messageType = typeName(messageClass);
+    String builderType = typeName(builderClass(messageClass));
+    List<FieldDescriptor> fields = new ArrayList<FieldDescriptor>(descriptor.getFields());
+    Collections.sort(fields, new Comparator<FieldDescriptor>() {
+      @Override
+      public int compare(FieldDescriptor a, FieldDescriptor b) {
+        return a.getNumber() < b.getNumber() ? -1 : (a.getNumber() == b.getNumber() ? 0 : 1);
+      }
+    });
+
+    source.line("static final class " + codecName + " implements polybuf.core.MessageCodec {");
+    source.indent();
+    source.line("@java.lang.Override");
+    source.line("public java.lang.Class<" + messageType + "> messageClass() {");
+    source.line("  return " + messageType + ".class;");
+    source.line("}");
+    source.line();
+    source.line("@java.lang.Override");
+    source.line("public java.lang.Class<" + builderType + "> builderClass() {");
+    source.line("  return " + builderType + ".class;");
+    source.line("}");
+    source.line();
+    source.line("@java.lang.Override");
+    source.line("public void writeContents(polybuf.core.Encoder encoder, com.google.protobuf.Message message)");
+    source.line("    throws java.io.IOException {");
+    source.line("  write(encoder, (" + messageType + ") message);");
+    source.line("}");
+    source.line();
+    source.line("static void write(polybuf.core.Encoder encoder, " + messageType + " message)");
+    source.line("    throws java.io.IOException {");
+    source.indent();
+    for (FieldDescriptor field : fields) {
+      generateWrite(source, messageClass, field);
+    }
+    source.outdent();
+    source.line("}");
+    source.line();
+    source.line("@java.lang.Override");
+    source.line("public boolean addOrSet(com.google.protobuf.Message.Builder builder,");
+    source.line("    com.google.protobuf.Descriptors.FieldDescriptor field, java.lang.Object value) {");
+    source.indent();
+    if (!fields.isEmpty()) {
+      source.line(builderType + " typed = (" + builderType + ") builder;");
+      source.line("switch (field.getNumber()) {");
+      for (FieldDescriptor field : fields) {
+        source.line("case " + field.getNumber() + ":");
+        source.line("  typed." + (field.isRepeated() ? "add" : "set") + Reflection.accessorName(field) + "("
+            + setterValue(messageClass, field) + ");");
+        source.line("  return true;");
+      }
+      source.line("default:");
+      source.line("  return false;");
+      source.line("}");
+    }
+    else {
+      source.line("return false;");
+    }
+    source.outdent();
+    source.line("}");
+    source.line();
+    source.line("@java.lang.Override");
+    source.line("public java.lang.String serializedName(com.google.protobuf.Descriptors.FieldDescriptor field) {");
+    source.indent();
+    if (!fields.isEmpty()) {
+      source.line("switch (field.getNumber()) {");
+      for (FieldDescriptor field : fields) {
+        source.line("case " + field.getNumber() + ":");
+        source.line("  return " + literal(config.serializedName(field)) + ";");
+      }
+      source.line("default:");
+      source.line("  return null;");
+      source.line("}");
+    }
+    else {
+      source.line("return null;");
+    }
+    source.outdent();
+    source.line("}");
+    source.outdent();
+    source.line("}");
+  }
+
+  private void generateWrite(SourceBuilder source, Class<?> messageClass, FieldDescriptor field) {
+    String name = Reflection.accessorName(field);
+    String serializedName = literal(config.serializedName(field));
+    if (!field.isRepeated()) {
+      source.line("if (message.has" + name + "()) {");
+      source.indent();
+      String value = "message.get" + name + "()";
+      switch (field.getType()) {
+      case UINT32:
+      case FIXED32:
+        source.line("encoder.scalarField(" + serializedName + ", " + value + " & 0xffffffffL);");
+        break;
+      case UINT64:
+      case FIXED64:
+        source.line("encoder.scalarUnsignedField(" + serializedName + ", " + value + ");");
+        break;
+      case ENUM:
+        source.line("encoder.scalarField(" + serializedName + ", " + value + ".getValueDescriptor().getName());");
+        break;
+      case MESSAGE:
+        source.line("encoder.startMessageField(" + serializedName + ");");
+        source.line(codecNames.get(field.getMessageType()) + ".write(encoder, " + value + ");");
+        source.line("encoder.endMessageField(" + serializedName + ");");
+        break;
+      default:
+        source.line("encoder.scalarField(" + serializedName + ", " + value + ");");
+        break;
+      }
+      source.outdent();
+      source.line("}");
+      return;
+    }
+
+    source.line("if (message.get" + name + "Count() > 0) {");
+    source.indent();
+    source.line("encoder.startRepeatedField(" + serializedName + ");");
+    String elementType = typeName(javaType(messageClass, field));
+    String element = "message.get" + name + "(i)";
+    switch (field.getType()) {
+    case INT32:
+    case SINT32:
+    case SFIXED32:
+    case INT64:
+    case SINT64:
+    case SFIXED64:
+    case FLOAT:
+    case DOUBLE:
+    case BOOL:
+      generateArray(source, elementType, name, element, "repeatedScalarField", serializedName);
+      break;
+    case UINT32:
+    case FIXED32:
+      generateArray(source, "long", name, element + " & 0xffffffffL", "repeatedScalarField", serializedName);
+      break;
+    case UINT64:
+    case FIXED64:
+      generateArray(source, "long", name, element, "repeatedScalarUnsignedField", serializedName);
+      break;
+    case ENUM:
+      source.line("for (" + elementType + " element : message.get" + name + "List()) {");
+      source.line("  encoder.repeatedScalarField(" + serializedName + ", element.getValueDescriptor().getName());");
+      source.line("}");
+      break;
+    case MESSAGE:
+      source.line("for (" + elementType + " element : message.get" + name + "List()) {");
+      source.line("  encoder.startRepeatedMessageField(" + serializedName + ");");
+      source.line("  " + codecNames.get(field.getMessageType()) + ".write(encoder, element);");
+      source.line("  encoder.endRepeatedMessageField(" + serializedName + ");");
+      source.line("}");
+      break;
+    default:
+      source.line("for (" + elementType + " element : message.get" + name + "List()) {");
+      source.line("  encoder.repeatedScalarField(" + serializedName + ", element);");
+      source.line("}");
+      break;
+    }
+    source.line("encoder.endRepeatedField(" + serializedName + ");");
+    source.outdent();
+    source.line("}");
+  }
+
+  // unbox the elements into the thread's scratch array for a single bulk encoder call, as the reflective writers do
+  private static void generateArray(SourceBuilder source, String arrayType, String name, String element,
+      String method, String serializedName) {
+    source.line("int length = message.get" + name + "Count();");
+    source.line(arrayType + "[] array = polybuf.core.util.ScalarArrays.forCurrentThread()." + arrayType + "s(length);");
+    source.line("for (int i = 0; i < length; ++i) {");
+    source.line("  array[i] = " + element + ";");
+    source.line("}");
+    source.line("encoder." + method + "(" + serializedName + ", array, length);");
+  }
+
+  private static String setterValue(Class<?> messageClass, FieldDescriptor field) {
+    String type = typeName(javaType(messageClass, field));
+    switch (field.getType()) {
+    case INT32:
+    case SINT32:
+    case SFIXED32:
+    case UINT32:
+    case FIXED32:
+      return "(java.lang.Integer) value";
+    case INT64:
+    case SINT64:
+    case SFIXED64:
+    case UINT64:
+    case FIXED64:
+      return "(java.lang.Long) value";
+    case FLOAT:
+      return "(java.lang.Float) value";
+    case DOUBLE:
+      return "(java.lang.Double) value";
+    case BOOL:
+      return "(java.lang.Boolean) value";
+    case ENUM:
+      return type + ".valueOf((com.google.protobuf.Descriptors.EnumValueDescriptor) value)";
+    default:
+      return "(" + type + ") value";
+    }
+  }
+
+  private static Descriptor descriptor(Class<?> messageClass) {
+    return Reflection.invokeStaticGetter(messageClass, "getDescriptor", Descriptor.class);
+  }
+
+  private static Class<?> builderClass(Class<?> messageClass) {
+    Method newBuilder = Reflection.getStaticDeclaredMethod(messageClass, "newBuilder");
+    return newBuilder == null ? null : newBuilder.getReturnType();
+  }
+
+  /**
+   * The Java type of the field, or of its elements for a repeated field, as returned by the generated getter.
+   */
+  private static Class<?> javaType(Class<?> messageClass, FieldDescriptor field) {
+    String getter = "get" + Reflection.accessorName(field);
+    try {
+      return field.isRepeated() ? messageClass.getMethod(getter, int.class).getReturnType() : messageClass.getMethod(
+          getter).getReturnType();
+    }
+    catch (NoSuchMethodException ex) {
+      return null;
+    }
+  }
+
+  private static boolean hasMethod(Class<?> klass, String name, Class<?>... parameterTypes) {
+    try {
+      klass.getMethod(name, parameterTypes);
+      return true;
+    }
+    catch (NoSuchMethodException ex) {
+      return false;
+    }
+  }
+
+  private static String packageName(Class<?> klass) {
+    String name = klass.getName();
+    int dot = name.lastIndexOf('.');
+    return dot < 0 ? "" : name.substring(0, dot);
+  }
+
+  // fully qualified, so generated names can't shadow referenced types
+  private static String typeName(Class<?> klass) {
+    return klass.getCanonicalName();
+  }
+
+  private static String literal(String string) {
+    StringBuilder result = new StringBuilder(string.length() + 2);
+    result.append('"');
+    for (int i = 0; i < string.length(); ++i) {
+      char c = string.charAt(i);
+      if (c == '"' || c == '\\') {
+        result.append('\\').append(c);
+      }
+      else if (c < 0x20) {
+        // unicode escapes of line terminators would end the literal
+        result.append(String.format("\\%03o", (int) c));
+      }
+      else if (c > 0x7e) {
+        result.append(String.format("\\u%04x", (int) c));
+      }
+      else {
+        result.append(c);
+      }
+    }
+    return result.append('"').toString();
+  }
+
+  private static class SourceBuilder {
+    private final StringBuilder source = new StringBuilder();
+    private String indentation = "";
+
+    void indent() {
+      indentation += "  ";
+    }
+
+    void outdent() {
+      indentation = indentation.substring(2);
+    }
+
+    void line() {
+      source.append('\n');
+    }
+
+    void line(String line) {
+      source.append(indentation).append(line).append('\n');
+    }
+
+    @Override
+    public String toString() {
+      return source.toString();
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package polybuf.codegen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import polybuf.core.MessageCodec;
+import polybuf.core.Serializer;
+import polybuf.core.config.RootMessage;
+import polybuf.core.config.SerializerConfig;
+import polybuf.core.test.Coverage;
+import polybuf.core.test.ExtensionsBase;
+import polybuf.core.test.NoOptions;
+import polybuf.json.BareJson;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.primitives.UnsignedLong;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+
+public class CodecGeneratorTest {
+
+  private static void assertContains(String source, String expected) {
+    assertTrue(expected, source.contains(expected));
+  }
+
+  @Test
+  public void coverage() throws Exception {
+    CodecGenerator generator = new CodecGenerator(SerializerConfig.of(Coverage.class));
+    assertTrue(generator.hasCodec(Coverage.Message.getDescriptor()));
+    assertTrue(generator.hasCodec(Coverage.NestedMessage.Nest.getDescriptor()));
+
+    String source = generator.generate("polybuf.core.test", "CoverageCodecs");
+    assertContains(source, "package polybuf.core.test;");
+    assertContains(source, "public final class CoverageCodecs {");
+    assertContains(source, "builder.registerCodec(new Coverage_NestedMessage_NestCodec());");
+    assertContains(source, "static final class Coverage_MessageCodec implements polybuf.core.MessageCodec {");
+    assertContains(source, "Coverage_BoolCodec.write(encoder, message.getRequired());");
+    assertContains(source, "encoder.scalarField(\"optional\", message.getOptional() & 0xffffffffL);");
+    assertContains(source, "encoder.repeatedScalarUnsignedField(\"repeated\", array, length);");
+    assertContains(source, "encoder.scalarField(\"required\", message.getRequired().getValueDescriptor().getName());");
+    assertContains(source, "typed.setRequired(polybuf.core.test.Coverage.Enum1.valueOf("
+        + "(com.google.protobuf.Descriptors.EnumValueDescriptor) value));");
+    assertContains(source, "typed.addRepeated((polybuf.core.test.Coverage.Bool) value);");
+    assertContains(source, "public java.lang.String serializedName(");
+  }
+
+  @Test
+  public void extendableMessagesAreWrittenReflectively() throws Exception {
+    CodecGenerator generator = new CodecGenerator(SerializerConfig.of(ExtensionsBase.class));
+    assertFalse(generator.hasCodec(ExtensionsBase.Message1.getDescriptor()));
+    assertFalse(generator.generate("polybuf.core.test", "ExtensionsBaseCodecs").contains("registerCodec"));
+  }
+
+  public static class NoOptionsConfig implements Callable<SerializerConfig> {
+    @Override
+    public SerializerConfig call() throws Exception {
+      return SerializerConfig.builder(NoOptions.class).addRoot(NoOptions.Message2.class).build();
+    }
+  }
+
+  @Test
+  public void commandLineConfigFactory() throws Exception {
+    File directory = Files.createTempDir();
+    CodecGenerator.main(new String[] { "-config", NoOptionsConfig.class.getName(), NoOptions.class.getName(),
+        directory.getPath() });
+    File file = new File(directory, "polybuf/core/test/NoOptionsCodecs.java");
+    String source = Files.toString(file, Charsets.UTF_8);
+    assertContains(source, "builder.registerCodec(new NoOptions_Message2_Message2ACodec());");
+    assertContains(source, "builder.registerCodec(new NoOptions_Message2Codec());");
+    assertFalse(source.contains("NoOptions_Message1Codec"));
+  }
+
+  @Test
+  public void compiledCodecsMatchReflection() throws Exception {
+    SerializerConfig reflective = SerializerConfig.of(Coverage.class);
+    String source = new CodecGenerator(reflective).generate("polybuf.core.test", "CoverageCodecs");
+    Class<?> codecs = compile("polybuf.core.test", "CoverageCodecs", source);
+    SerializerConfig.Builder builder = SerializerConfig.builder(Coverage.class);
+    codecs.getMethod("registerAll", SerializerConfig.Builder.class).invoke(null, builder);
+    SerializerConfig generated = builder.build();
+    assertEquals(reflective.getRoots().size(), generated.getCodecs().size());
+
+    Serializer<InputStream, OutputStream> reflectiveSerializer = BareJson.serializer(reflective);
+    Serializer<InputStream, OutputStream> generatedSerializer = BareJson.serializer(generated);
+    for (RootMessage root : reflective.getRoots()) {
+      Message.Builder expected = root.newBuilder();
+      assertNotNull(generated.readerConfig().codecForBuilder(expected));
+      fill(expected, 2);
+      String json = write(reflectiveSerializer, expected.build());
+      assertEquals(json, write(generatedSerializer, expected.build()));
+
+      Message.Builder actual = root.newBuilder();
+      generatedSerializer.mergeFrom(actual, new ByteArrayInputStream(json.getBytes(Charsets.UTF_8)));
+      assertEquals(expected.build(), actual.build());
+    }
+  }
+
+  private static Class<?> compile(String packageName, String className, String source) throws Exception {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertNotNull("compiling generated codecs needs a JDK", compiler);
+    File directory = Files.createTempDir();
+    File file = new File(directory, className + ".java");
+    Files.write(source, file, Charsets.UTF_8);
+    String classpath = location(Coverage.class) + File.pathSeparator + location(MessageCodec.class)
+        + File.pathSeparator + location(Message.class) + File.pathSeparator + location(UnsignedLong.class);
+    StringWriter diagnostics = new StringWriter();
+    StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+    boolean compiled = compiler.getTask(diagnostics, fileManager, null,
+        Arrays.asList("-classpath", classpath, "-d", directory.getPath()), null,
+        fileManager.getJavaFileObjects(file)).call();
+    fileManager.close();
+    assertTrue(diagnostics.toString(), compiled);
+    ClassLoader loader = new URLClassLoader(new URL[] { directory.toURI().toURL() },
+        CodecGeneratorTest.class.getClassLoader());
+    return loader.loadClass(packageName + "." + className);
+  }
+
+  private static String location(Class<?> klass) throws Exception {
+    return new File(klass.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+  }
+
+  // sets every field, with a few elements for repeated fields, using values that vary with the seed
+  private static void fill(Message.Builder builder, int seed) {
+    for (FieldDescriptor field : builder.getDescriptorForType().getFields()) {
+      if (field.isRepeated()) {
+        for (int i = 0; i < 3; ++i) {
+          builder.addRepeatedField(field, value(builder, field, seed + i));
+        }
+      }
+      else {
+        builder.setField(field, value(builder, field, seed));
+      }
+    }
+  }
+
+  private static Object value(Message.Builder builder, FieldDescriptor field, int seed) {
+    switch (field.getType()) {
+    case BOOL:
+      return seed % 2 == 0;
+    case BYTES:
+      return ByteString.copyFromUtf8("bytes" + seed);
+    case DOUBLE:
+      return seed + 0.5;
+    case FLOAT:
+      return seed + 0.25f;
+    case ENUM:
+      List<EnumValueDescriptor> values = field.getEnumType().getValues();
+      return values.get(seed % values.size());
+    case INT32:
+    case SINT32:
+    case SFIXED32:
+    case UINT32:
+    case FIXED32:
+      // negative values are large unsigned ones
+      return -seed;
+    case INT64:
+    case SINT64:
+    case SFIXED64:
+    case UINT64:
+    case FIXED64:
+      return -seed * 10000000000L;
+    case STRING:
+      return "string \u00e9" + seed;
+    case MESSAGE:
+      Message.Builder nested = builder.newBuilderForField(field);
+      fill(nested, seed + 1);
+      return nested.build();
+    default:
+      throw new AssertionError("unexpected type " + field.getType());
+    }
+  }
+
+  private static String write(Serializer<InputStream, OutputStream> serializer, Message message) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    serializer.writeTo(message, out);
+    return new String(out.toByteArray(), Charsets.UTF_8);
+  }
+}
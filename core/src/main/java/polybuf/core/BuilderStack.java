@@ -17,12 +17,12 @@
 
 package polybuf.core;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 
+import polybuf.core.config.FieldOrder;
 import polybuf.core.config.ReaderConfig;
 import polybuf.core.config.RootMessage;
-import polybuf.core.util.CharacterRange;
 
 import com.google.common.base.Preconditions;
 import com.google.protobuf.ByteString;
@@ -42,11 +42,20 @@ import com.google.protobuf.Message.Builder;
  * In strict mode, if the structure is provided and differs from that of the protobuf descriptor, a
  * {@link ParseException} is raised. In compatible mode, compatible differences are allowed. See
  * {@link ScalarParser#parse} for compatible parsing behavior.
+ * <p>
+ * The stack is array backed and its entries are pooled by depth, so a stack that is reused for many messages does not
+ * allocate stack entries once it has reached the maximum nesting depth of those messages.
  */
 public class BuilderStack {
+  private static final int initialCapacity = 8;
+
   private final ReaderConfig config;
-  private final LinkedList<Entry> stack = new LinkedList<Entry>();
   private final ScalarParser scalarParser;
+  private Entry[] stack = new Entry[initialCapacity];
+  private int size;
+  // pooled entries indexed by stack depth
+  private RealEntry[] realEntries = new RealEntry[initialCapacity];
+  private UnknownEntry[] unknownEntries = new UnknownEntry[initialCapacity];
 
   /**
    * Create a new stack.
@@ -62,11 +71,61 @@ public class BuilderStack {
   }
 
   public boolean isEmpty() {
-    return stack.isEmpty();
+    return size == 0;
   }
 
   public void clear() {
-    stack.clear();
+    while (size > 0) {
+      pop();
+    }
+  }
+
+  private Entry first() {
+    if (size == 0) {
+      throw new NoSuchElementException();
+    }
+    return stack[size - 1];
+  }
+
+  private void push(Entry entry) {
+    if (size == stack.length) {
+      stack = Arrays.copyOf(stack, 2 * size);
+    }
+    stack[size++] = entry;
+  }
+
+  private Entry pop() {
+    Entry entry = stack[--size];
+    stack[size] = null;
+    entry.release();
+    return entry;
+  }
+
+  // the pooled entries are for the next position on the stack, they are pushed by the caller
+  private RealEntry nextRealEntry(Builder builder) {
+    if (size >= realEntries.length) {
+      realEntries = Arrays.copyOf(realEntries, Math.max(2 * realEntries.length, size + 1));
+    }
+    RealEntry entry = realEntries[size];
+    if (entry == null) {
+      entry = new RealEntry();
+      realEntries[size] = entry;
+    }
+    entry.reset(builder);
+    return entry;
+  }
+
+  private UnknownEntry nextUnknownEntry(String serializedName) {
+    if (size >= unknownEntries.length) {
+      unknownEntries = Arrays.copyOf(unknownEntries, Math.max(2 * unknownEntries.length, size + 1));
+    }
+    UnknownEntry entry = unknownEntries[size];
+    if (entry == null) {
+      entry = new UnknownEntry();
+      unknownEntries[size] = entry;
+    }
+    entry.reset(serializedName);
+    return entry;
   }
 
   /**
@@ -76,10 +135,10 @@ public class BuilderStack {
    * @throws ParseException if the stack is not empty
    */
   public void pushRootBuilder(Builder builder) {
-    if (!stack.isEmpty()) {
+    if (size != 0) {
       throw new ParseException("root can only be pushed to emtpy stack");
     }
-    stack.push(new RealEntry(builder));
+    push(nextRealEntry(builder));
   }
 
   /**
@@ -91,13 +150,13 @@ public class BuilderStack {
    * @see #isRootPoppable
    */
   public Builder popRootBuilder() {
-    if (stack.size() == 0) {
+    if (size == 0) {
       throw new NoSuchElementException();
     }
     if (!isRootPoppable()) {
       throw new ParseException("trying to pop unfinished root");
     }
-    return stack.removeFirst().completedBuilder();
+    return popCompletedBuilder();
   }
 
   /**
@@ -110,7 +169,7 @@ public class BuilderStack {
    * @param serializedName
    */
   public void pushRootOrField(String serializedName) {
-    if (stack.isEmpty()) {
+    if (size == 0) {
       pushRoot(serializedName);
     }
     else {
@@ -120,7 +179,7 @@ public class BuilderStack {
 
   /**
    * Pops a root or field with no specified content. This is typically used to pop embedded message fields. If is leaves
-   * the stack empty, then return the root builder. Use {@link #popRootOrField(String, CharacterRange, ScalarContext)}
+   * the stack empty, then return the root builder. Use {@link #popRootOrField(String, CharSequence, ScalarContext)}
    * to provide content for the popped element
    * 
    * @param serializedName
@@ -135,7 +194,7 @@ public class BuilderStack {
    * Confirm there is one builder on the stack and it does not have any fields currently being built.
    */
   public boolean isRootPoppable() {
-    return stack.size() == 1 && !stack.getFirst().hasField();
+    return size == 1 && !stack[0].hasField();
   }
 
   /**
@@ -152,7 +211,7 @@ public class BuilderStack {
    * @throws ParseException the serialized name does't match expected name for field or message at the top of the stack,
    *           or if there is a problem parsing the provided content.
    */
-  public Builder popRootOrField(String serializedName, CharacterRange content, ScalarContext scalarContext) {
+  public Builder popRootOrField(String serializedName, CharSequence content, ScalarContext scalarContext) {
     if (!isRootPoppable()) {
       popField(serializedName, content, scalarContext);
       return null;
@@ -165,11 +224,7 @@ public class BuilderStack {
    * Returns the descriptor for the field at the top of the stack, or {@code null} if none.
    */
   public FieldDescriptor.Type getCurrentFieldType() {
-    Entry first = stack.getFirst();
-    if (first == null) {
-      return null;
-    }
-    return first.getFieldType();
+    return first().getFieldType();
   }
 
   /**
@@ -184,16 +239,15 @@ public class BuilderStack {
    * @throws NoSuchElementException if stack is empty
    */
   public void pushField(String serializedName, StructureContext context) {
-    Entry first = stack.getFirst();
-    Entry child = first.pushField(serializedName, context);
+    Entry child = first().pushField(serializedName, context);
     if (child == null) {
       return;
     }
-    stack.push(child);
+    push(child);
   }
 
   /**
-   * Pops the field with no content. Use {@link #popField(String, CharacterRange, ScalarContext)} to provide content.
+   * Pops the field with no content. Use {@link #popField(String, CharSequence, ScalarContext)} to provide content.
    * 
    * @param serializedName
    * @throws ParseException if there is no field in progress or the the serialized name does not match the current field
@@ -214,17 +268,17 @@ public class BuilderStack {
    * @throws ParseException if there is no field in progress, the the serialized name does not match the current field,
    *           or there are problems parsing the content
    */
-  public void popField(String serializedName, CharacterRange content, ScalarContext scalarContext) {
-    Entry first = stack.getFirst();
+  public void popField(String serializedName, CharSequence content, ScalarContext scalarContext) {
+    Entry first = first();
     if (!first.hasField()) {
       // maybe an error from caller, or maybe child message is done
       // and it is time to set it in parent
-      if (stack.size() == 1) {
+      if (size == 1) {
         throw new ParseException("trying to pop empty field");
       }
-      Entry parent = stack.get(1);
+      Entry parent = stack[size - 2];
       if (parent.popChild(serializedName, content, scalarContext, first)) {
-        stack.removeFirst();
+        pop();
         return;
       }
       throw new ParseException("trying to pop empty field");
@@ -255,16 +309,22 @@ public class BuilderStack {
    * @throws ParseException if the serialized name does not match that of the builder.
    */
   public Builder popRoot(String serializedName) {
-    if (stack.size() == 0) {
+    if (size == 0) {
       throw new NoSuchElementException();
     }
     if (!isRootPoppable()) {
       throw new ParseException("trying to pop unfinished root");
     }
-    if (!stack.getFirst().isPoppableAs(serializedName)) {
+    if (!stack[0].isPoppableAs(serializedName)) {
       throw new ParseException("attept to pop root that does not match pushed: " + serializedName);
     }
-    return stack.removeFirst().completedBuilder();
+    return popCompletedBuilder();
+  }
+
+  private Builder popCompletedBuilder() {
+    Builder builder = first().completedBuilder();
+    pop();
+    return builder;
   }
 
   /**
@@ -281,9 +341,9 @@ public class BuilderStack {
    *           content
    * @throws NoSuchElement if the stack is empty
    */
-  public void addOrSetScalarField(String serializedName, StructureContext structureContext, CharacterRange content,
+  public void addOrSetScalarField(String serializedName, StructureContext structureContext, CharSequence content,
       ScalarContext scalarContext) {
-    stack.getFirst().addOrSetScalarField(serializedName, content, structureContext, scalarContext);
+    first().addOrSetScalarField(serializedName, content, structureContext, scalarContext);
   }
 
   /**
@@ -295,7 +355,7 @@ public class BuilderStack {
    * @throws NoSuchElement if the stack is empty
    */
   public void clearScalarField(String serializedName) {
-    stack.getFirst().clearScalarField(serializedName);
+    first().clearScalarField(serializedName);
   }
 
   private interface Entry {
@@ -310,24 +370,46 @@ public class BuilderStack {
 
     void popField(String serializedName);
 
-    void popField(String serializedName, CharacterRange content, ScalarContext scalarContext);
+    void popField(String serializedName, CharSequence content, ScalarContext scalarContext);
 
-    boolean popChild(String serializedName, CharacterRange content, ScalarContext scalarContext, Entry child);
+    boolean popChild(String serializedName, CharSequence content, ScalarContext scalarContext, Entry child);
 
     Builder completedBuilder();
 
+    void release();
+
     void clearScalarField(String serializedName);
 
-    void addOrSetScalarField(String serializedName, CharacterRange content, StructureContext structureContext,
+    void addOrSetScalarField(String serializedName, CharSequence content, StructureContext structureContext,
         ScalarContext scalarContext);
   }
 
   private class RealEntry implements Entry {
-    private final Builder builder;
+    private Builder builder;
+    private MessageCodec codec;
     private FieldDescriptor field;
-
-    public RealEntry(Builder builder) {
+    // serialized name the current field was pushed with, popping with the same name needs no lookup
+    private String fieldName;
+    // fields are predicted from the order they were last seen in, repeated values of the last field are not counted
+    private FieldOrder order;
+    private int position;
+    private String lastName;
+    private FieldDescriptor lastField;
+
+    void reset(Builder builder) {
       this.builder = builder;
+      this.codec = builder == null ? null : config.codecForBuilder(builder);
+      this.field = null;
+      this.fieldName = null;
+      this.order = builder == null ? null : config.fieldOrder(builder.getDescriptorForType());
+      this.position = 0;
+      this.lastName = null;
+      this.lastField = null;
+    }
+
+    @Override
+    public void release() {
+      reset(null);
     }
 
     @Override
@@ -335,10 +417,10 @@ public class BuilderStack {
       if (this.field != null) {
         throw new ParseException("existing field must be popped before pushing new field");
       }
-      FieldDescriptor field = fieldDescriptor(serializedName);
+      FieldDescriptor field = nextFieldDescriptor(serializedName);
       if (field == null) {
         if (!config.isStrict()) {
-          return new UnknownEntry(serializedName);
+          return nextUnknownEntry(serializedName);
         }
         throw new ParseException("unknown field name: " + serializedName);
       }
@@ -346,9 +428,10 @@ public class BuilderStack {
       validateFieldStructure(field, context);
 
       this.field = field;
+      this.fieldName = serializedName;
 
       if (FieldDescriptor.Type.MESSAGE == field.getType()) {
-        return new RealEntry(builder.newBuilderForField(field));
+        return nextRealEntry(builder.newBuilderForField(field));
       }
       return null;
     }
@@ -377,12 +460,12 @@ public class BuilderStack {
     }
 
     @Override
-    public boolean popChild(String serializedName, CharacterRange content, ScalarContext scalarContext, Entry child) {
+    public boolean popChild(String serializedName, CharSequence content, ScalarContext scalarContext, Entry child) {
       if (field == null && child instanceof UnknownEntry) {
         return ((UnknownEntry) child).isComplete(serializedName);
       }
       else if (field != null && field.getType() == FieldDescriptor.Type.MESSAGE
-          && field.equals(fieldDescriptor(serializedName))) {
+          && field.equals(pushedFieldDescriptor(serializedName))) {
         if (content != null) {
           // this could be message specified in compatible mode as base64 string.
           popField(serializedName, content, scalarContext);
@@ -397,11 +480,11 @@ public class BuilderStack {
     }
 
     @Override
-    public void popField(String serializedName, CharacterRange content, ScalarContext scalarContext) {
+    public void popField(String serializedName, CharSequence content, ScalarContext scalarContext) {
       if (field == null) {
         throw new ParseException("trying to pop empty field");
       }
-      FieldDescriptor field = fieldDescriptor(serializedName);
+      FieldDescriptor field = pushedFieldDescriptor(serializedName);
       if (field == null) {
         throw new ParseException("unknown field name: " + serializedName);
       }
@@ -412,6 +495,7 @@ public class BuilderStack {
         addOrSetScalarField(field, content, scalarContext);
       }
       this.field = null;
+      this.fieldName = null;
     }
 
     @Override
@@ -432,9 +516,9 @@ public class BuilderStack {
     }
 
     @Override
-    public void addOrSetScalarField(String serializedName, CharacterRange content, StructureContext structureContext,
+    public void addOrSetScalarField(String serializedName, CharSequence content, StructureContext structureContext,
         ScalarContext scalarContext) {
-      FieldDescriptor field = fieldDescriptor(serializedName);
+      FieldDescriptor field = nextFieldDescriptor(serializedName);
       if (field == null) {
         if (!config.isStrict()) {
           return;
@@ -445,8 +529,8 @@ public class BuilderStack {
       addOrSetScalarField(field, content, scalarContext);
     }
 
-    private void addOrSetScalarField(FieldDescriptor field, CharacterRange content, ScalarContext scalarContext) {
-      Object value = scalarParser.parse(field, content.toString(), scalarContext, config.isStrict());
+    private void addOrSetScalarField(FieldDescriptor field, CharSequence content, ScalarContext scalarContext) {
+      Object value = scalarParser.parse(field, content, scalarContext, config.isStrict());
       if (FieldDescriptor.Type.MESSAGE == field.getType()) {
         assert value instanceof ByteString;
         if (config.isStrict()) {
@@ -470,7 +554,7 @@ public class BuilderStack {
         if (value == null) {
           throw new IncompatibleFieldParseException("Cannot have null in repeated field", field);
         }
-        else {
+        else if (!addOrSetWithCodec(field, value)) {
           builder.addRepeatedField(field, value);
         }
       }
@@ -478,12 +562,16 @@ public class BuilderStack {
         if (value == null) {
           builder.clearField(field);
         }
-        else {
+        else if (!addOrSetWithCodec(field, value)) {
           builder.setField(field, value);
         }
       }
     }
 
+    private boolean addOrSetWithCodec(FieldDescriptor field, Object value) {
+      return codec != null && !field.isExtension() && codec.addOrSet(builder, field, value);
+    }
+
     private void validateFieldStructure(FieldDescriptor field, StructureContext context) {
       if (config.isStrict() && !context.canRepresent(field)) {
         throw new IncompatibleFieldParseException("field does not allow structure " + context, field);
@@ -493,33 +581,66 @@ public class BuilderStack {
     private FieldDescriptor fieldDescriptor(String serializedName) {
       return config.fieldDescriptor(builder.getDescriptorForType(), serializedName);
     }
+
+    private FieldDescriptor nextFieldDescriptor(String serializedName) {
+      if (serializedName.equals(lastName)) {
+        return lastField;
+      }
+      FieldDescriptor field = order.fieldDescriptor(position++, serializedName);
+      lastName = serializedName;
+      lastField = field;
+      return field;
+    }
+
+    private FieldDescriptor pushedFieldDescriptor(String serializedName) {
+      if (fieldName != null && fieldName.equals(serializedName)) {
+        return field;
+      }
+      return fieldDescriptor(serializedName);
+    }
   }
 
   // This type of entry is used for unrecognized fields in compatible mode.
   // It gobbles up all fields pushed into it, yet still checks that the
   // field push/pop names match
   private class UnknownEntry implements Entry {
-    private final LinkedList<String> serializedNames = new LinkedList<String>();
+    private String[] serializedNames = new String[initialCapacity];
+    private int depth;
+
+    void reset(String serializedName) {
+      release();
+      serializedNames[depth++] = serializedName;
+    }
 
-    public UnknownEntry(String serializedName) {
-      serializedNames.push(serializedName);
+    @Override
+    public void release() {
+      Arrays.fill(serializedNames, 0, depth, null);
+      depth = 0;
     }
 
     @Override
     public Entry pushField(String serializedName, StructureContext context) {
-      serializedNames.push(serializedName);
+      if (depth == serializedNames.length) {
+        serializedNames = Arrays.copyOf(serializedNames, 2 * depth);
+      }
+      serializedNames[depth++] = serializedName;
       return null;
     }
 
     @Override
     public void popField(String serializedName) {
-      if (!serializedNames.pop().equals(serializedName)) {
+      if (depth == 0) {
+        throw new NoSuchElementException();
+      }
+      String pushed = serializedNames[--depth];
+      serializedNames[depth] = null;
+      if (!pushed.equals(serializedName)) {
         throw new ParseException("attept to pop field that does not match pushed: " + serializedName);
       }
     }
 
     @Override
-    public void popField(String serializedName, CharacterRange content, ScalarContext scalarContext) {
+    public void popField(String serializedName, CharSequence content, ScalarContext scalarContext) {
       this.popField(serializedName);
     }
 
@@ -529,12 +650,12 @@ public class BuilderStack {
     }
 
     public boolean isComplete(String serializedName) {
-      return serializedNames.size() == 1 && serializedNames.peek().equals(serializedName);
+      return depth == 1 && serializedNames[0].equals(serializedName);
     }
 
     @Override
     public boolean hasField() {
-      return serializedNames.size() > 1;
+      return depth > 1;
     }
 
     @Override
@@ -555,12 +676,12 @@ public class BuilderStack {
     }
 
     @Override
-    public void addOrSetScalarField(String serializedName, CharacterRange content, StructureContext structureContext,
+    public void addOrSetScalarField(String serializedName, CharSequence content, StructureContext structureContext,
         ScalarContext scalarContext) {
     }
 
     @Override
-    public boolean popChild(String serializedName, CharacterRange content, ScalarContext scalarContext, Entry child) {
+    public boolean popChild(String serializedName, CharSequence content, ScalarContext scalarContext, Entry child) {
       return false;
     }
   }
@@ -17,7 +17,7 @@
 
 package polybuf.core;
 
-import org.apache.commons.codec.binary.Base64;
+import polybuf.core.util.Base64Codec;
 
 import com.google.protobuf.ByteString;
 
@@ -31,16 +31,24 @@ import com.google.protobuf.ByteString;
  * <p>
  * See {@link HeuristicStringParser} for a parser that attempts to handle the conversion more completely.
  */
-public class DefaultStringParser implements StringParser {
+public class DefaultStringParser implements CharSequenceStringParser {
 
   /**
-   * Parses bytes from the string.
-   * <p>
-   * Assumes the string is Base64 encoded and decodes to generate the returned byte string.
+   * Parses bytes from the string. Equivalent to {@link #asStrictBytes(CharSequence)}.
    */
   @Override
   public ByteString asStrictBytes(String string) {
-    return ByteString.copyFrom(Base64.decodeBase64(string));
+    return asStrictBytes((CharSequence) string);
+  }
+
+  /**
+   * Parses bytes from the characters.
+   * <p>
+   * Assumes the characters are Base64 encoded and decodes them in a single pass to generate the returned byte string.
+   */
+  @Override
+  public ByteString asStrictBytes(CharSequence chars) {
+    return Base64Codec.decode(chars);
   }
 
   /**
@@ -81,6 +89,6 @@ public class DefaultStringParser implements StringParser {
    */
   @Override
   public ByteString asCompatibleMessageBytes(String string) {
-    return ByteString.copyFrom(Base64.decodeBase64(string));
+    return Base64Codec.decode(string);
   }
 }
@@ -20,6 +20,7 @@ package polybuf.core;
 import java.io.IOException;
 
 import com.google.common.primitives.UnsignedLong;
+import com.google.protobuf.ByteString;
 
 /**
  * Streaming-type interface that needs to be implemented to serialize a protobuf message into another encoding.
@@ -147,16 +148,28 @@ public interface Encoder {
    */
   void scalarField(String fieldName, UnsignedLong fieldValue) throws IOException;
 
+  /**
+   * Called for unsigned 64 bit protobuf types. The bits of {@code fieldValue} are interpreted as unsigned, so negative
+   * values represent {@code 2^63} and above. This is the callback used by the message writers, it avoids allocating an
+   * {@link UnsignedLong} per value.
+   */
+  void scalarUnsignedField(String fieldName, long fieldValue) throws IOException;
+
   void scalarField(String fieldName, float fieldValue) throws IOException;
 
   void scalarField(String fieldName, double fieldValue) throws IOException;
 
   /**
-   * Called for strings, binary and enum types.  For binary types, the string is
-   * the Base64 encoding.
+   * Called for strings and enum types.
    */
   void scalarField(String fieldName, String fieldValue) throws IOException;
 
+  /**
+   * Called for binary types. Encoders without a native binary representation should write the Base64 encoding, as if
+   * {@link #scalarField(String, String)} was called with it.
+   */
+  void scalarField(String fieldName, ByteString fieldValue) throws IOException;
+
   /**
    * @see #startRepeatedField
    * @see #scalarField(String, boolean)
@@ -181,6 +194,12 @@ public interface Encoder {
    */
   void repeatedScalarField(String fieldName, UnsignedLong fieldValue) throws IOException;
 
+  /**
+   * @see #startRepeatedField
+   * @see #scalarUnsignedField(String, long)
+   */
+  void repeatedScalarUnsignedField(String fieldName, long fieldValue) throws IOException;
+
   /**
    * @see #startRepeatedField
    * @see #scalarField(String, float)
@@ -198,4 +217,48 @@ public interface Encoder {
    * @see #scalarField(String, String)
    */
   void repeatedScalarField(String fieldName, String fieldValue) throws IOException;
+
+  /**
+   * @see #startRepeatedField
+   * @see #scalarField(String, ByteString)
+   */
+  void repeatedScalarField(String fieldName, ByteString fieldValue) throws IOException;
+
+  /**
+   * Called with all the values of a repeated {@code int32, sint32} or {@code sfixed32} field, in place of a
+   * {@link #repeatedScalarField(String, int)} call per element. Only the first {@code length} values are written.
+   * 
+   * @see #startRepeatedField
+   */
+  void repeatedScalarField(String fieldName, int[] fieldValues, int length) throws IOException;
+
+  /**
+   * Called with all the values of a repeated signed 64 bit or unsigned 32 bit field.
+   * 
+   * @see #repeatedScalarField(String, int[], int)
+   */
+  void repeatedScalarField(String fieldName, long[] fieldValues, int length) throws IOException;
+
+  /**
+   * Called with all the values of a repeated unsigned 64 bit field.
+   * 
+   * @see #repeatedScalarField(String, int[], int)
+   * @see #scalarUnsignedField(String, long)
+   */
+  void repeatedScalarUnsignedField(String fieldName, long[] fieldValues, int length) throws IOException;
+
+  /**
+   * @see #repeatedScalarField(String, int[], int)
+   */
+  void repeatedScalarField(String fieldName, float[] fieldValues, int length) throws IOException;
+
+  /**
+   * @see #repeatedScalarField(String, int[], int)
+   */
+  void repeatedScalarField(String fieldName, double[] fieldValues, int length) throws IOException;
+
+  /**
+   * @see #repeatedScalarField(String, int[], int)
+   */
+  void repeatedScalarField(String fieldName, boolean[] fieldValues, int length) throws IOException;
 }
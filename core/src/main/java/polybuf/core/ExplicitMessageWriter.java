@@ -18,6 +18,7 @@
 package polybuf.core;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 import com.google.protobuf.Message;
@@ -42,4 +43,18 @@ public interface ExplicitMessageWriter<O> {
    * Write a list of messages to the output using the provided serialized message name.
    */
   <T extends Message> void writeTo(String messageName, List<T> messages, O output) throws IOException;
+
+  /**
+   * Write the messages returned by the iterator to the output as a list using the provided serialized message name.
+   * <p>
+   * Each message is written as soon as it is returned, so the messages never need to be held in memory at the same
+   * time. This is useful for large lists produced lazily, e.g. from a database cursor.
+   */
+  void writeTo(String messageName, Iterator<? extends Message> messages, O output) throws IOException;
+
+  /**
+   * Write the messages to the output as a list using the provided serialized message name. Equivalent to
+   * {@code writeTo(messageName, messages.iterator(), output)}.
+   */
+  void writeTo(String messageName, Iterable<? extends Message> messages, O output) throws IOException;
 }
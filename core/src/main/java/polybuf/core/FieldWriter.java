@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package polybuf.core;
+
+import java.io.IOException;
+import java.util.List;
+
+import polybuf.core.util.ScalarArrays;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+
+/**
+ * Writer strategy for a single field of a {@link MessageWritePlan}.
+ * <p>
+ * The serialized name and the encoder callback appropriate for the field type are resolved once when the plan is
+ * compiled so writing a value is just a presence check followed by a direct call to the encoder.
+ */
+abstract class FieldWriter {
+  protected final FieldDescriptor field;
+  protected final String serializedName;
+  private final boolean isRepeated;
+
+  protected FieldWriter(FieldDescriptor field, String serializedName) {
+    this.field = field;
+    this.serializedName = serializedName;
+    this.isRepeated = field.isRepeated();
+  }
+
+  /**
+   * Create the writer appropriate for the type of the field.
+   * 
+   * @param serializedName serialized name of the field, {@code null} if the field cannot be serialized
+   */
+  static FieldWriter of(FieldDescriptor field, String serializedName, WritePlanCompiler compiler) {
+    switch (field.getType()) {
+    case INT32:
+    case SINT32:
+    case SFIXED32:
+      return new IntWriter(field, serializedName);
+
+    case INT64:
+    case SINT64:
+    case SFIXED64:
+      return new LongWriter(field, serializedName);
+
+    case FLOAT:
+      return new FloatWriter(field, serializedName);
+
+    case DOUBLE:
+      return new DoubleWriter(field, serializedName);
+
+    case BOOL:
+      return new BoolWriter(field, serializedName);
+
+    case UINT32:
+    case FIXED32:
+      return new UnsignedIntWriter(field, serializedName);
+
+    case UINT64:
+    case FIXED64:
+      return new UnsignedLongWriter(field, serializedName);
+
+    case STRING:
+      return new StringWriter(field, serializedName);
+
+    case BYTES:
+      return new BytesWriter(field, serializedName);
+
+    case ENUM:
+      return new EnumWriter(field, serializedName);
+
+    case MESSAGE:
+      return new MessageWriter(field, serializedName, compiler);
+
+    case GROUP:
+      return new GroupWriter(field, serializedName);
+
+    default:
+      throw new AssertionError("unknown type");
+    }
+  }
+
+  FieldDescriptor getField() {
+    return field;
+  }
+
+  /**
+   * Write the field if it is present in the message, i.e. set for a singular field or non-empty for a repeated field.
+   */
+  void writeIfPresent(Encoder encoder, Message message) throws IOException {
+    if (isRepeated) {
+      if (message.getRepeatedFieldCount(field) > 0) {
+        writeValue(encoder, message.getField(field));
+      }
+    }
+    else if (message.hasField(field)) {
+      writeValue(encoder, message.getField(field));
+    }
+  }
+
+  /**
+   * Write the value of the field as returned from {@link Message#getField}.
+   */
+  void writeValue(Encoder encoder, Object value) throws IOException {
+    assert value != null;
+    if (serializedName == null) {
+      throw new WriteException("cannnot serialize field " + field.getFullName());
+    }
+
+    if (isRepeated) {
+      assert value instanceof List;
+      encoder.startRepeatedField(serializedName);
+      writeRepeatedElements(encoder, (List<?>) value);
+      encoder.endRepeatedField(serializedName);
+    }
+    else {
+      writeSingle(encoder, value);
+    }
+  }
+
+  protected abstract void writeSingle(Encoder encoder, Object value) throws IOException;
+
+  protected abstract void writeRepeated(Encoder encoder, Object value) throws IOException;
+
+  /**
+   * Write the elements of a non-empty repeated field. Writers of primitive types override this to unbox the elements
+   * into the thread's {@link ScalarArrays} scratch arrays and make a single bulk encoder call.
+   */
+  protected void writeRepeatedElements(Encoder encoder, List<?> values) throws IOException {
+    for (Object element : values) {
+      writeRepeated(encoder, element);
+    }
+  }
+
+  private static class IntWriter extends FieldWriter {
+    IntWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, ((Integer) value).intValue());
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, ((Integer) value).intValue());
+    }
+
+    @Override
+    protected void writeRepeatedElements(Encoder encoder, List<?> values) throws IOException {
+      int length = values.size();
+      int[] array = ScalarArrays.forCurrentThread().ints(length);
+      for (int i = 0; i < length; ++i) {
+        array[i] = (Integer) values.get(i);
+      }
+      encoder.repeatedScalarField(serializedName, array, length);
+    }
+  }
+
+  private static class LongWriter extends FieldWriter {
+    LongWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, ((Long) value).longValue());
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, ((Long) value).longValue());
+    }
+
+    @Override
+    protected void writeRepeatedElements(Encoder encoder, List<?> values) throws IOException {
+      int length = values.size();
+      long[] array = ScalarArrays.forCurrentThread().longs(length);
+      for (int i = 0; i < length; ++i) {
+        array[i] = (Long) values.get(i);
+      }
+      encoder.repeatedScalarField(serializedName, array, length);
+    }
+  }
+
+  private static class FloatWriter extends FieldWriter {
+    FloatWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, ((Float) value).floatValue());
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, ((Float) value).floatValue());
+    }
+
+    @Override
+    protected void writeRepeatedElements(Encoder encoder, List<?> values) throws IOException {
+      int length = values.size();
+      float[] array = ScalarArrays.forCurrentThread().floats(length);
+      for (int i = 0; i < length; ++i) {
+        array[i] = (Float) values.get(i);
+      }
+      encoder.repeatedScalarField(serializedName, array, length);
+    }
+  }
+
+  private static class DoubleWriter extends FieldWriter {
+    DoubleWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, ((Double) value).doubleValue());
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, ((Double) value).doubleValue());
+    }
+
+    @Override
+    protected void writeRepeatedElements(Encoder encoder, List<?> values) throws IOException {
+      int length = values.size();
+      double[] array = ScalarArrays.forCurrentThread().doubles(length);
+      for (int i = 0; i < length; ++i) {
+        array[i] = (Double) values.get(i);
+      }
+      encoder.repeatedScalarField(serializedName, array, length);
+    }
+  }
+
+  private static class BoolWriter extends FieldWriter {
+    BoolWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, ((Boolean) value).booleanValue());
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, ((Boolean) value).booleanValue());
+    }
+
+    @Override
+    protected void writeRepeatedElements(Encoder encoder, List<?> values) throws IOException {
+      int length = values.size();
+      boolean[] array = ScalarArrays.forCurrentThread().booleans(length);
+      for (int i = 0; i < length; ++i) {
+        array[i] = (Boolean) values.get(i);
+      }
+      encoder.repeatedScalarField(serializedName, array, length);
+    }
+  }
+
+  private static class UnsignedIntWriter extends FieldWriter {
+    UnsignedIntWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, ((Integer) value) & 0xffffffffL);
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, ((Integer) value) & 0xffffffffL);
+    }
+
+    @Override
+    protected void writeRepeatedElements(Encoder encoder, List<?> values) throws IOException {
+      int length = values.size();
+      long[] array = ScalarArrays.forCurrentThread().longs(length);
+      for (int i = 0; i < length; ++i) {
+        array[i] = ((Integer) values.get(i)) & 0xffffffffL;
+      }
+      encoder.repeatedScalarField(serializedName, array, length);
+    }
+  }
+
+  private static class UnsignedLongWriter extends FieldWriter {
+    UnsignedLongWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarUnsignedField(serializedName, (Long) value);
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarUnsignedField(serializedName, (Long) value);
+    }
+
+    @Override
+    protected void writeRepeatedElements(Encoder encoder, List<?> values) throws IOException {
+      int length = values.size();
+      long[] array = ScalarArrays.forCurrentThread().longs(length);
+      for (int i = 0; i < length; ++i) {
+        array[i] = (Long) values.get(i);
+      }
+      encoder.repeatedScalarUnsignedField(serializedName, array, length);
+    }
+  }
+
+  private static class StringWriter extends FieldWriter {
+    StringWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, (String) value);
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, (String) value);
+    }
+  }
+
+  private static class BytesWriter extends FieldWriter {
+    BytesWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, (ByteString) value);
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, (ByteString) value);
+    }
+  }
+
+  private static class EnumWriter extends FieldWriter {
+    EnumWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      encoder.scalarField(serializedName, ((EnumValueDescriptor) value).getName());
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      encoder.repeatedScalarField(serializedName, ((EnumValueDescriptor) value).getName());
+    }
+  }
+
+  private static class MessageWriter extends FieldWriter {
+    private final WritePlanCompiler compiler;
+    // resolved lazily since message types can be recursive
+    private volatile MessageWritePlan plan;
+
+    MessageWriter(FieldDescriptor field, String serializedName, WritePlanCompiler compiler) {
+      super(field, serializedName);
+      this.compiler = compiler;
+    }
+
+    private MessageWritePlan plan() {
+      MessageWritePlan p = plan;
+      if (p == null) {
+        p = compiler.plan(field.getMessageType());
+        plan = p;
+      }
+      return p;
+    }
+
+    private MessageContentWriter contentWriter(Message message) {
+      return compiler.usesClassWriters() ? compiler.contentWriter(message) : plan();
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      Message message = (Message) value;
+      encoder.startMessageField(serializedName);
+      contentWriter(message).writeContents(encoder, message);
+      encoder.endMessageField(serializedName);
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      Message message = (Message) value;
+      encoder.startRepeatedMessageField(serializedName);
+      contentWriter(message).writeContents(encoder, message);
+      encoder.endRepeatedMessageField(serializedName);
+    }
+  }
+
+  private static class GroupWriter extends FieldWriter {
+    GroupWriter(FieldDescriptor field, String serializedName) {
+      super(field, serializedName);
+    }
+
+    @Override
+    protected void writeSingle(Encoder encoder, Object value) throws IOException {
+      throw new AssertionError("group not supported");
+    }
+
+    @Override
+    protected void writeRepeated(Encoder encoder, Object value) throws IOException {
+      throw new AssertionError("group not supported");
+    }
+  }
+}
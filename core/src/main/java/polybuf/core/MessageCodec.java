@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.GeneratedMessage;
+import com.google.protobuf.Message;
+
+/**
+ * Writer and builder setter for a single generated message class, typically generated at build time by the
+ * {@code polybuf-java-codegen} module.
+ * <p>
+ * Codecs registered with {@link polybuf.core.config.SerializerConfig.Builder#registerCodec} replace the reflective
+ * {@link MessageWritePlan} when writing messages of the class, and the reflective {@link Message.Builder#setField} and
+ * {@link Message.Builder#addRepeatedField} calls when reading into builders of the class. Values handed to
+ * {@link #addOrSet} are produced by the configured {@link ScalarParser}, so strict and compatible parsing are
+ * unchanged. A codec must make the same encoder calls as the reflective plan for the serialized names of the
+ * configuration it is registered with, so registration fails if the names it reports through {@link #serializedName}
+ * differ from those of the configuration's field naming strategy.
+ */
+public interface MessageCodec extends MessageContentWriter {
+
+  /**
+   * The generated message class written by this codec.
+   */
+  Class<? extends GeneratedMessage> messageClass();
+
+  /**
+   * The class of the builders of {@link #messageClass}.
+   */
+  Class<? extends Message.Builder> builderClass();
+
+  /**
+   * Set, or for repeated fields add, a non-null value. The value has the type expected by
+   * {@link Message.Builder#setField}, e.g. an {@code EnumValueDescriptor} for enum fields. Returns {@code false} if
+   * the field must be set reflectively.
+   */
+  boolean addOrSet(Message.Builder builder, FieldDescriptor field, Object value);
+
+  /**
+   * The serialized name written for a declared field of {@link #messageClass}, {@code null} if the codec cannot write
+   * the field. Generated codecs return the names embedded from the configuration they were generated with.
+   */
+  String serializedName(FieldDescriptor field);
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package polybuf.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+
+/**
+ * Immutable, precompiled description of how to write the contents of a single message type.
+ * <p>
+ * The plan holds the declared fields in field number order (the same order {@link Message#getAllFields} uses), each
+ * with its serialized name and type-specific writer already resolved. Writing a message then just walks the array and
+ * checks presence of each field rather than rediscovering the structure of the message on every call.
+ * <p>
+ * Messages that declare extension ranges can hold fields that are not known until the message is seen, so plans for
+ * those messages fall back to {@link Message#getAllFields} to discover which extensions are set, but still use the
+ * precompiled writers for each field.
+ * 
+ * @see WritePlanCompiler
+ */
+class MessageWritePlan implements MessageContentWriter {
+  private static final Comparator<FieldDescriptor> byNumber = new Comparator<FieldDescriptor>() {
+    @Override
+    public int compare(FieldDescriptor o1, FieldDescriptor o2) {
+      int i = o1.getNumber();
+      int j = o2.getNumber();
+      return (i < j) ? -1 : ((i == j) ? 0 : 1);
+    }
+  };
+
+  private final Descriptor descriptor;
+  private final FieldWriter[] fields;
+  private final FieldWriter[] fieldsByIndex;
+  private final boolean isExtendable;
+  private final WritePlanCompiler compiler;
+
+  MessageWritePlan(Descriptor descriptor, WritePlanCompiler compiler) {
+    this.descriptor = descriptor;
+    this.compiler = compiler;
+    List<FieldDescriptor> declared = descriptor.getFields();
+    this.fieldsByIndex = new FieldWriter[declared.size()];
+    for (FieldDescriptor field : declared) {
+      fieldsByIndex[field.getIndex()] = compiler.fieldWriter(field);
+    }
+    List<FieldDescriptor> ordered = new ArrayList<FieldDescriptor>(declared);
+    Collections.sort(ordered, byNumber);
+    this.fields = new FieldWriter[ordered.size()];
+    for (int i = 0; i < fields.length; ++i) {
+      fields[i] = fieldsByIndex[ordered.get(i).getIndex()];
+    }
+    this.isExtendable = descriptor.toProto().getExtensionRangeCount() > 0;
+  }
+
+  /**
+   * The message type this plan writes.
+   */
+  Descriptor getDescriptor() {
+    return descriptor;
+  }
+
+  /**
+   * Whether the message type declares extension ranges.
+   */
+  boolean isExtendable() {
+    return isExtendable;
+  }
+
+  /**
+   * The writers of the declared fields, in field number order.
+   */
+  FieldWriter[] getFields() {
+    return fields.clone();
+  }
+
+  /**
+   * Write all the fields present in the message. The message must be of the type this plan was compiled for.
+   */
+  @Override
+  public void writeContents(Encoder encoder, Message message) throws IOException {
+    assert message.getDescriptorForType() == descriptor;
+    if (isExtendable) {
+      for (Map.Entry<FieldDescriptor, Object> e : message.getAllFields().entrySet()) {
+        writer(e.getKey()).writeValue(encoder, e.getValue());
+      }
+      return;
+    }
+    for (FieldWriter field : fields) {
+      field.writeIfPresent(encoder, message);
+    }
+  }
+
+  private FieldWriter writer(FieldDescriptor field) {
+    if (field.isExtension()) {
+      return compiler.extensionWriter(field);
+    }
+    return fieldsByIndex[field.getIndex()];
+  }
+}
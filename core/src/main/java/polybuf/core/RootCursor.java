@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import com.google.protobuf.Message;
+
+/**
+ * Iterator over the builders of a list of messages, parsed from the input one message at a time.
+ * <p>
+ * Each message is parsed when it is requested, so callers can process and drop each builder before the next one is
+ * read and the size of the list does not matter. Errors reading the input are thrown from {@link #hasNext} and
+ * {@link #next} as {@link ParseException}s. Elements cannot be removed.
+ * <p>
+ * Closing the cursor releases the parser without reading the rest of the input. As with the other reader methods, the
+ * underlying input itself is not closed.
+ * 
+ * @param <T> builder type
+ * @see StreamingMessageReader
+ */
+public interface RootCursor<T extends Message.Builder> extends Iterator<T>, Closeable {
+}
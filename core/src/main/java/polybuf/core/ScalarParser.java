@@ -17,10 +17,14 @@
 
 package polybuf.core;
 
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import com.google.common.primitives.UnsignedInts;
-import com.google.common.primitives.UnsignedLongs;
+import polybuf.core.util.CharSequences;
+import polybuf.core.util.FloatingPointParser;
+
+import com.google.protobuf.Descriptors.EnumDescriptor;
 import com.google.protobuf.Descriptors.EnumValueDescriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 
@@ -30,19 +34,19 @@ import com.google.protobuf.Descriptors.FieldDescriptor;
  * This parser knows how to parse in both strict and compatible mode.  Implementers of message readers
  * should just need to subclass and implement the abstract methods specifying how to handle floating
  * point and boolean literals.
+ * <p>
+ * Content is parsed from a {@link CharSequence}, so readers can pass their character buffers directly. Integral,
+ * boolean and enum values are parsed without creating an intermediate {@code String} when the subclass overrides the
+ * character sequence versions of the literal methods.
  * 
  * @see #parse
  */
 public abstract class ScalarParser {
- 
-  // use pattern to disallow Java's hex strings
-  private final static Pattern floatPattern = Pattern.compile(
-      "[+-]?" + // optional leading sign
-      "(?:\\d+(?:\\.\\d*)?|" + // integer or decimal including things like 5.
-      "\\.\\d+)" + // no leading digit, e.g. -.5
-      "(?:[eE][+-]?\\d+)?"); // optional trailing exponent
-  
+
   private final StringParser stringParser;
+  // set when the string parser can decode strict bytes without a String
+  private final CharSequenceStringParser charSequenceParser;
+  private final ConcurrentMap<EnumDescriptor, EnumNames> enumNames = new ConcurrentHashMap<EnumDescriptor, EnumNames>();
   
   public ScalarParser() {
     this(new DefaultStringParser());
@@ -50,6 +54,8 @@ public abstract class ScalarParser {
   
   public ScalarParser(StringParser stringParser) {
     this.stringParser = stringParser;
+    this.charSequenceParser = stringParser instanceof CharSequenceStringParser ? (CharSequenceStringParser) stringParser
+        : null;
   }
 
   /**
@@ -85,6 +91,43 @@ public abstract class ScalarParser {
     return "false".equals(string) || "0".equals(string);
   }
 
+  /**
+   * Character sequence version of {@link #isPositiveInfinityLiteral(String)}, which it calls by default. Override to
+   * avoid creating a {@code String} for every floating point value.
+   */
+  protected boolean isPositiveInfinityLiteral(CharSequence chars) {
+    return isPositiveInfinityLiteral(chars.toString());
+  }
+
+  /**
+   * Character sequence version of {@link #isNegativeInfinityLiteral(String)}, which it calls by default.
+   */
+  protected boolean isNegativeInfinityLiteral(CharSequence chars) {
+    return isNegativeInfinityLiteral(chars.toString());
+  }
+
+  /**
+   * Character sequence version of {@link #isNaNLiteral(String)}, which it calls by default.
+   */
+  protected boolean isNaNLiteral(CharSequence chars) {
+    return isNaNLiteral(chars.toString());
+  }
+
+  /**
+   * Character sequence version of {@link #isTrueLiteral(String)}, which it calls by default. Override to avoid
+   * creating a {@code String} for every boolean and compatible integral value.
+   */
+  protected boolean isTrueLiteral(CharSequence chars) {
+    return isTrueLiteral(chars.toString());
+  }
+
+  /**
+   * Character sequence version of {@link #isFalseLiteral(String)}, which it calls by default.
+   */
+  protected boolean isFalseLiteral(CharSequence chars) {
+    return isFalseLiteral(chars.toString());
+  }
+
   /**
    * Parse the string from the provided context to generate an object of the type expected by protobuf for the given
    * field.
@@ -106,14 +149,24 @@ public abstract class ScalarParser {
    * <li>messages are compatible with bytes "if the bytes contain the encoded version of the message". See
    * {@link StringParser}</li>
    * </ul>
+   * Strict bytes values are decoded directly from the characters when the string parser is a
+   * {@link CharSequenceStringParser}. Only string and compatible bytes and message values are always converted to a
+   * {@code String} before parsing.
+   */
+  public Object parse(FieldDescriptor field, CharSequence chars, ScalarContext context, boolean isStrict) {
+    assert chars != null;
+    assert chars.length() > 0;
+    return isStrict ? parseStrict(field, chars, context) : parseCompatible(field, chars, context);
+  }
+
+  /**
+   * Parse the string. Equivalent to {@link #parse(FieldDescriptor, CharSequence, ScalarContext, boolean)}.
    */
   public Object parse(FieldDescriptor field, String string, ScalarContext context, boolean isStrict) {
-    assert string != null;
-    assert !string.isEmpty();
-    return isStrict ? parseStrict(field, string, context) : parseCompatible(field, string, context);
+    return parse(field, (CharSequence) string, context, isStrict);
   }
 
-  private Object parseStrict(FieldDescriptor field, String string, ScalarContext context) {
+  private Object parseStrict(FieldDescriptor field, CharSequence chars, ScalarContext context) {
     boolean allowMessageAsBytes = false;
     if (!context.canRepresent(field.getType(), allowMessageAsBytes)) {
       throw new IncompatibleFieldParseException("Incompatible context " + context, field);
@@ -123,40 +176,41 @@ public abstract class ScalarParser {
     case INT32:
     case SINT32:
     case SFIXED32:
-      return Integer.parseInt(string);
+      return CharSequences.parseInt(chars);
 
     case INT64:
     case SINT64:
     case SFIXED64:
-      return Long.parseLong(string);
+      return CharSequences.parseLong(chars);
 
     case FLOAT:
-      return parseFloat(string);
+      return parseFloat(chars);
 
     case DOUBLE:
-      return parseDouble(string);
+      return parseDouble(chars);
 
     case BOOL:
-      return parseBool(string);
+      return parseBool(chars);
 
     case UINT32:
     case FIXED32:
-      return UnsignedInts.parseUnsignedInt(string);
+      return CharSequences.parseUnsignedInt(chars);
 
     case UINT64:
     case FIXED64:
-      return UnsignedLongs.parseUnsignedLong(string);
+      return CharSequences.parseUnsignedLong(chars);
 
     case STRING:
-      return string;
+      return chars.toString();
 
     case BYTES:
-      return stringParser.asStrictBytes(string);
+      return charSequenceParser != null ? charSequenceParser.asStrictBytes(chars) : stringParser.asStrictBytes(chars
+          .toString());
 
     case ENUM:
-      EnumValueDescriptor value = field.getEnumType().findValueByName(string);
+      EnumValueDescriptor value = enumValue(field, chars);
       if (value == null) {
-        throw new IncompatibleFieldParseException("Invalid enumerator " + string, field);
+        throw new IncompatibleFieldParseException("Invalid enumerator " + chars, field);
       }
       return value;
 
@@ -170,20 +224,24 @@ public abstract class ScalarParser {
 
   }
 
-  private Long parseCompatibleIntegralLiteral(String string) {
-    if (isTrueLiteral(string)) {
+  private long parseCompatibleIntegralLiteral(CharSequence chars) {
+    if (isTrueLiteral(chars)) {
       return 1L;
     }
-    if (isFalseLiteral(string)) {
+    if (isFalseLiteral(chars)) {
       return 0L;
     }
-    if (string.startsWith("-")) {
-      return Long.parseLong(string);
+    if (isNegative(chars)) {
+      return CharSequences.parseLong(chars);
     }
-    return UnsignedLongs.parseUnsignedLong(string);
+    return CharSequences.parseUnsignedLong(chars);
   }
 
-  private Object parseCompatible(FieldDescriptor field, String string, ScalarContext context) {
+  private static boolean isNegative(CharSequence chars) {
+    return chars.length() > 0 && chars.charAt(0) == '-';
+  }
+
+  private Object parseCompatible(FieldDescriptor field, CharSequence chars, ScalarContext context) {
     if (!context.canRepresent(field.getType(), true)) {
       throw new IncompatibleFieldParseException("Incompatible context " + context, field);
     }
@@ -193,46 +251,46 @@ public abstract class ScalarParser {
     // these are all compatible "you will get the same effect as if you had cast the number to that type in C++"
     case INT32:
     case UINT32:
-      return parseCompatibleIntegralLiteral(string).intValue();
+      return (int) parseCompatibleIntegralLiteral(chars);
     case INT64:
     case UINT64:
-      return parseCompatibleIntegralLiteral(string);
+      return parseCompatibleIntegralLiteral(chars);
     case BOOL:
-      return parseCompatibleIntegralLiteral(string) == 0 ? false : true;
+      return parseCompatibleIntegralLiteral(chars) == 0 ? false : true;
 
       // these are compatible "but are not compatible with the other integer types"
     case SINT32:
-      return Long.valueOf(string).intValue();
+      return (int) CharSequences.parseLong(chars);
     case SINT64:
-      return Long.valueOf(string);
+      return CharSequences.parseLong(chars);
 
       // strings are compatible with bytes "as long as the bytes are valid UTF-8"
       // messages are compatible with bytes "if the bytes contain an encoded version of the message"
     case STRING:
-      return stringParser.asCompatibleString(string);
+      return stringParser.asCompatibleString(chars.toString());
     case BYTES:
-      return stringParser.asCompatibleBytes(string);
+      return stringParser.asCompatibleBytes(chars.toString());
     case MESSAGE:
-      return stringParser.asCompatibleMessageBytes(string);
+      return stringParser.asCompatibleMessageBytes(chars.toString());
 
       // these are compatible
     case FIXED32:
     case SFIXED32:
-      return string.startsWith("-") ? Integer.parseInt(string) : UnsignedInts.parseUnsignedInt(string);
+      return isNegative(chars) ? CharSequences.parseInt(chars) : CharSequences.parseUnsignedInt(chars);
 
       // these are compatible
     case FIXED64:
     case SFIXED64:
-      return string.startsWith("-") ? Long.parseLong(string) : UnsignedLongs.parseUnsignedLong(string);
+      return isNegative(chars) ? CharSequences.parseLong(chars) : CharSequences.parseUnsignedLong(chars);
 
     case FLOAT:
-      return parseFloat(string);
+      return parseFloat(chars);
 
     case DOUBLE:
-      return parseDouble(string);
+      return parseDouble(chars);
 
     case ENUM:
-      EnumValueDescriptor value = field.getEnumType().findValueByName(string);
+      EnumValueDescriptor value = enumValue(field, chars);
       // if (value == null) {
       // return field.getDefaultValue();
       // }
@@ -246,47 +304,87 @@ public abstract class ScalarParser {
     }
   }
 
-  private Boolean parseBool(String string) {
-    if (isTrueLiteral(string)) {
+  private Boolean parseBool(CharSequence chars) {
+    if (isTrueLiteral(chars)) {
       return true;
     }
-    else if (isFalseLiteral(string)) {
+    else if (isFalseLiteral(chars)) {
       return false;
     }
     else {
-      throw new NumberFormatException("strict parser found unsupported string for BOOL " + string);
+      throw new NumberFormatException("strict parser found unsupported string for BOOL " + chars);
+    }
+  }
+
+  private EnumValueDescriptor enumValue(FieldDescriptor field, CharSequence name) {
+    EnumDescriptor type = field.getEnumType();
+    EnumNames names = enumNames.get(type);
+    if (names == null) {
+      names = new EnumNames(type);
+      EnumNames existing = enumNames.putIfAbsent(type, names);
+      if (existing != null) {
+        names = existing;
+      }
     }
+    return names.find(name);
   }
 
-  private Float parseFloat(String string) {
-    if (isPositiveInfinityLiteral(string)) {
+  // the floating point parser disallows Java's hex strings
+  private Float parseFloat(CharSequence chars) {
+    if (isPositiveInfinityLiteral(chars)) {
       return Float.POSITIVE_INFINITY;
     }
-    else if (isNegativeInfinityLiteral(string)) {
+    else if (isNegativeInfinityLiteral(chars)) {
       return Float.NEGATIVE_INFINITY;
     }
-    else if (isNaNLiteral(string)) {
+    else if (isNaNLiteral(chars)) {
       return Float.NaN;
     }
-    else if (floatPattern.matcher(string).matches()) {
-      return Float.parseFloat(string);
-    }
-    throw new NumberFormatException("invalid float " + string);
+    return FloatingPointParser.parseFloat(chars);
   }
 
-  private Double parseDouble(String string) {
-    if (isPositiveInfinityLiteral(string)) {
+  private Double parseDouble(CharSequence chars) {
+    if (isPositiveInfinityLiteral(chars)) {
       return Double.POSITIVE_INFINITY;
     }
-    else if (isNegativeInfinityLiteral(string)) {
+    else if (isNegativeInfinityLiteral(chars)) {
       return Double.NEGATIVE_INFINITY;
     }
-    else if (isNaNLiteral(string)) {
+    else if (isNaNLiteral(chars)) {
       return Double.NaN;
     }
-    else if (floatPattern.matcher(string).matches()) {
-      return Double.parseDouble(string);
+    return FloatingPointParser.parseDouble(chars);
+  }
+
+  // open addressing hash table of enum values, probed with the String hash code of the name
+  private static class EnumNames {
+    private final EnumValueDescriptor[] values;
+    private final int mask;
+
+    EnumNames(EnumDescriptor type) {
+      List<EnumValueDescriptor> all = type.getValues();
+      int capacity = Integer.highestOneBit(Math.max(2 * all.size(), 1)) << 1;
+      this.values = new EnumValueDescriptor[capacity];
+      this.mask = capacity - 1;
+      for (EnumValueDescriptor value : all) {
+        int i = value.getName().hashCode() & mask;
+        while (values[i] != null) {
+          i = (i + 1) & mask;
+        }
+        values[i] = value;
+      }
+    }
+
+    EnumValueDescriptor find(CharSequence name) {
+      int i = CharSequences.hashCode(name) & mask;
+      EnumValueDescriptor value;
+      while ((value = values[i]) != null) {
+        if (CharSequences.contentEquals(name, value.getName())) {
+          return value;
+        }
+        i = (i + 1) & mask;
+      }
+      return null;
     }
-    throw new NumberFormatException("invalid double " + string);
   }
 }
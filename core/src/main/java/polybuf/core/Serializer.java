@@ -18,6 +18,7 @@
 package polybuf.core;
 
 import java.io.IOException;
+import java.util.Iterator;
 import java.util.List;
 
 import polybuf.core.config.SerializerConfig;
@@ -27,12 +28,13 @@ import com.google.protobuf.Message.Builder;
 
 /**
  * Default serializer implementation implements {@link MessageReader} and {@link MessageWriter} interfaces
- * given {@link MessageReaderFactory} and {@link EncoderFactory}.
+ * given {@link MessageReaderFactory} and {@link EncoderFactory}. The {@link StreamingMessageReader} cursors are
+ * supported when the factory creates a streaming reader.
  * 
  * @param <I>
  * @param <O>
  */
-public class Serializer<I, O> implements MessageReader<I>, MessageWriter<O> {
+public class Serializer<I, O> implements StreamingMessageReader<I>, MessageWriter<O> {
   private final SerializerConfig config;
   private final MessageReader<I> reader;
   private final ExplicitMessageWriter<O> writer;
@@ -40,7 +42,7 @@ public class Serializer<I, O> implements MessageReader<I>, MessageWriter<O> {
   public Serializer(SerializerConfig config, MessageReaderFactory<I> readerFactory, EncoderFactory<O> encoderFactory) {
     this.config = config;
     this.reader = readerFactory.reader(config.readerConfig());
-    this.writer = new DefaultMessageWriter<O>(encoderFactory, config.getFieldNamingStrategy());
+    this.writer = new DefaultMessageWriter<O>(encoderFactory, config);
   }
 
   @Override
@@ -58,6 +60,28 @@ public class Serializer<I, O> implements MessageReader<I>, MessageWriter<O> {
     reader.mergeFrom(builder, input);
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Throws {@link UnsupportedOperationException} if the reader of this serializer is not a
+   * {@link StreamingMessageReader}.
+   */
+  @Override
+  public RootCursor<Builder> mergeRepeatedRootsCursor(I input) throws IOException {
+    return streamingReader().mergeRepeatedRootsCursor(input);
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Throws {@link UnsupportedOperationException} if the reader of this serializer is not a
+   * {@link StreamingMessageReader}.
+   */
+  @Override
+  public <T extends Builder> RootCursor<T> mergeRepeatedCursor(T prototype, I input) throws IOException {
+    return streamingReader().mergeRepeatedCursor(prototype, input);
+  }
+
   @Override
   public <T extends Builder> List<T> mergeRepeatedFrom(T prototype, I input) throws IOException {
     return reader.mergeRepeatedFrom(prototype, input);
@@ -83,20 +107,29 @@ public class Serializer<I, O> implements MessageReader<I>, MessageWriter<O> {
     writer.writeTo(messageName, messages, output);
   }
 
+  @Override
+  public void writeTo(String messageName, Iterator<? extends Message> messages, O output) throws IOException {
+    writer.writeTo(messageName, messages, output);
+  }
+
+  @Override
+  public void writeTo(String messageName, Iterable<? extends Message> messages, O output) throws IOException {
+    writer.writeTo(messageName, messages, output);
+  }
+
+  private StreamingMessageReader<I> streamingReader() {
+    if (!(reader instanceof StreamingMessageReader)) {
+      throw new UnsupportedOperationException("reader does not support cursors " + reader.getClass());
+    }
+    return (StreamingMessageReader<I>) reader;
+  }
+
   private String serializedName(Message message) {
     return config.serializedName(message.getDescriptorForType());
   }
 
+  // the messages of a list share a type, so the first is enough. An empty list has no type and no name
   private <T extends Message> String serializedName(List<T> messages) {
-    String serializedName = null;
-    for (T message : messages) {
-      if (serializedName == null) {
-        serializedName = serializedName(message);
-        continue;
-      }
-      assert serializedName.equals(serializedName(message));
-    }
-    assert serializedName != null;
-    return serializedName;
+    return messages.isEmpty() ? null : serializedName(messages.get(0));
   }
 }
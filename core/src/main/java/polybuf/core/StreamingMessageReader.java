@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core;
+
+import java.io.IOException;
+
+import com.google.protobuf.Message;
+
+/**
+ * Message reader that can also parse lists of messages incrementally.
+ * <p>
+ * The list methods of {@link MessageReader} return only once the whole list has been parsed, so every message is in
+ * memory at the same time. The cursors returned here parse one message per call to {@link RootCursor#next} instead.
+ * 
+ * @param <I> input type, e.g. {@code InputStream}
+ */
+public interface StreamingMessageReader<I> extends MessageReader<I> {
+
+  /**
+   * Open a cursor over the builders of the list in the input. The reader determines the builder type once, from the
+   * input serialization, before the first message is parsed. Equivalent to {@link #mergeRepeatedRootsFrom}, but
+   * incremental.
+   */
+  RootCursor<Message.Builder> mergeRepeatedRootsCursor(I input) throws IOException;
+
+  /**
+   * Open a cursor over the builders of the list in the input, each cloned from the prototype. Equivalent to
+   * {@link #mergeRepeatedFrom}, but incremental.
+   */
+  <T extends Message.Builder> RootCursor<T> mergeRepeatedCursor(T prototype, I input) throws IOException;
+}
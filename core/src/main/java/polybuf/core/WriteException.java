@@ -24,4 +24,8 @@ public class WriteException extends RuntimeException {
   public WriteException(String message) {
     super(message);
   }
+
+  public WriteException(String message, Throwable cause) {
+    super(message, cause);
+  }
 }
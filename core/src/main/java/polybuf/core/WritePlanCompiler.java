@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package polybuf.core;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import polybuf.core.config.FieldNamingStrategy;
+
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.GeneratedMessage;
+import com.google.protobuf.Message;
+
+/**
+ * Compiles and caches {@link MessageWritePlan} instances for a field naming strategy.
+ * <p>
+ * Each message type is compiled the first time it is written. The compiler is thread safe, so a single instance can be
+ * shared by all writes made through a {@link DefaultMessageWriter}.
+ * <p>
+ * Generated messages with a registered {@link MessageCodec} are written by the codec. Other messages, such as
+ * {@link com.google.protobuf.DynamicMessage}, use the reflective plan of their type.
+ */
+class WritePlanCompiler {
+  private final FieldNamingStrategy fieldNamingStrategy;
+  private final boolean usesClassWriters;
+  private final ConcurrentMap<Descriptor, MessageWritePlan> plans =
+      new ConcurrentHashMap<Descriptor, MessageWritePlan>();
+  private final ConcurrentMap<FieldDescriptor, FieldWriter> extensionWriters =
+      new ConcurrentHashMap<FieldDescriptor, FieldWriter>();
+  private final ConcurrentMap<Class<?>, MessageContentWriter> classWriters =
+      new ConcurrentHashMap<Class<?>, MessageContentWriter>();
+
+  WritePlanCompiler(FieldNamingStrategy fieldNamingStrategy) {
+    this(fieldNamingStrategy, Collections.<MessageCodec> emptyList());
+  }
+
+  WritePlanCompiler(FieldNamingStrategy fieldNamingStrategy, Collection<MessageCodec> codecs) {
+    this.fieldNamingStrategy = fieldNamingStrategy;
+    for (MessageCodec codec : codecs) {
+      classWriters.put(codec.messageClass(), codec);
+    }
+    this.usesClassWriters = !codecs.isEmpty();
+  }
+
+  /**
+   * Whether messages may be written by a codec registered for their class rather than the plan of their type.
+   */
+  boolean usesClassWriters() {
+    return usesClassWriters;
+  }
+
+  /**
+   * Get the writer for the contents of the message, compiling the plan of its type if needed.
+   */
+  MessageContentWriter contentWriter(Message message) {
+    if (!usesClassWriters || !(message instanceof GeneratedMessage)) {
+      return plan(message.getDescriptorForType());
+    }
+    Class<?> messageClass = message.getClass();
+    MessageContentWriter writer = classWriters.get(messageClass);
+    if (writer == null) {
+      // remember the plan so classes without a codec are only looked up once
+      writer = plan(message.getDescriptorForType());
+      MessageContentWriter existing = classWriters.putIfAbsent(messageClass, writer);
+      if (existing != null) {
+        writer = existing;
+      }
+    }
+    return writer;
+  }
+
+  /**
+   * Get the plan for the message type, compiling it if needed.
+   */
+  MessageWritePlan plan(Descriptor descriptor) {
+    MessageWritePlan plan = plans.get(descriptor);
+    if (plan == null) {
+      plan = new MessageWritePlan(descriptor, this);
+      MessageWritePlan existing = plans.putIfAbsent(descriptor, plan);
+      if (existing != null) {
+        plan = existing;
+      }
+    }
+    return plan;
+  }
+
+  /**
+   * Get the writer for an extension field, compiling it if needed.
+   */
+  FieldWriter extensionWriter(FieldDescriptor field) {
+    assert field.isExtension();
+    FieldWriter writer = extensionWriters.get(field);
+    if (writer == null) {
+      writer = fieldWriter(field);
+      FieldWriter existing = extensionWriters.putIfAbsent(field, writer);
+      if (existing != null) {
+        writer = existing;
+      }
+    }
+    return writer;
+  }
+
+  FieldWriter fieldWriter(FieldDescriptor field) {
+    return FieldWriter.of(field, fieldNamingStrategy.serializedName(field), this);
+  }
+}
@@ -18,6 +18,9 @@
 package polybuf.core.config;
 
 import com.google.common.base.CaseFormat;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.protobuf.Descriptors.Descriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.ExtensionRegistry;
@@ -74,12 +77,27 @@ import com.google.protobuf.ExtensionRegistry.ExtensionInfo;
  * <p>
  * Finally, some serializations reserve special meaning for the default package separator {@code '.'}. This class allows
  * the package separator to be configured to avoid conflicts.
+ * <p>
+ * Name conversions are memoized in bounded, thread-safe tables so each field's serialized name, and the protobuf name
+ * corresponding to each serialized name, is only computed once. Share a single instance (as {@link SerializerConfig}
+ * does) to share the tables.
  */
 public class DefaultFieldNamingStrategy implements FieldNamingStrategy {
+  /**
+   * Maximum number of entries held in each name table.
+   */
+  public static final int MAXIMUM_CACHED_NAMES = 10000;
+
+  // caches can't hold null so use this for serialized names without a valid full name
+  private static final String noFullName = "";
+
   private final PackageSeparator packageSeparator;
   private final boolean deserializeAnySeparator;
   private final CaseFormat serializedFieldFormat;
   private final CaseFormat protobufFieldFormat = CaseFormat.LOWER_UNDERSCORE;
+  private final LoadingCache<FieldDescriptor, String> serializedNames;
+  private final LoadingCache<String, String> bareFieldNames;
+  private final LoadingCache<String, String> fullNames;
 
   /**
    * 
@@ -90,6 +108,28 @@ public class DefaultFieldNamingStrategy implements FieldNamingStrategy {
     this.packageSeparator = packageSeparator;
     this.deserializeAnySeparator = deserializeAnySeparator;
     this.serializedFieldFormat = CaseFormat.LOWER_CAMEL;
+    this.serializedNames = CacheBuilder.newBuilder().maximumSize(MAXIMUM_CACHED_NAMES)
+        .build(new CacheLoader<FieldDescriptor, String>() {
+          @Override
+          public String load(FieldDescriptor field) {
+            return computeSerializedName(field);
+          }
+        });
+    this.bareFieldNames = CacheBuilder.newBuilder().maximumSize(MAXIMUM_CACHED_NAMES)
+        .build(new CacheLoader<String, String>() {
+          @Override
+          public String load(String serializedName) {
+            return serializedFieldFormat.to(protobufFieldFormat, serializedName);
+          }
+        });
+    this.fullNames = CacheBuilder.newBuilder().maximumSize(MAXIMUM_CACHED_NAMES)
+        .build(new CacheLoader<String, String>() {
+          @Override
+          public String load(String serializedName) {
+            String fullName = computeFullName(serializedName);
+            return fullName == null ? noFullName : fullName;
+          }
+        });
   }
 
   /**
@@ -108,10 +148,7 @@ public class DefaultFieldNamingStrategy implements FieldNamingStrategy {
 
   @Override
   public String serializedName(FieldDescriptor field) {
-    if (field.isExtension()) {
-      return serializedNameOfFullName(field.getFullName());
-    }
-    return serializedNameOfBareFieldName(field.getName());
+    return serializedNames.getUnchecked(field);
   }
 
   @Override
@@ -134,6 +171,21 @@ public class DefaultFieldNamingStrategy implements FieldNamingStrategy {
     return info.descriptor;
   }
 
+  private String computeSerializedName(FieldDescriptor field) {
+    String serializedName;
+    if (field.isExtension()) {
+      serializedName = serializedNameOfFullName(field.getFullName());
+      // compute the reverse direction now too since this is the name we expect to see when parsing
+      String fullName = computeFullName(serializedName);
+      fullNames.put(serializedName, fullName == null ? noFullName : fullName);
+    }
+    else {
+      serializedName = serializedNameOfBareFieldName(field.getName());
+      bareFieldNames.put(serializedName, serializedFieldFormat.to(protobufFieldFormat, serializedName));
+    }
+    return serializedName;
+  }
+
   private String serializedNameOfFullName(String fullName) {
     // we apply serializedFieldFormat to last segment of full name
     // for consistency with other field names
@@ -145,8 +197,16 @@ public class DefaultFieldNamingStrategy implements FieldNamingStrategy {
   }
 
   private String fullNameOfSerializedName(String serializedName) {
+    String fullName = fullNames.getUnchecked(serializedName);
+    return fullName == noFullName ? null : fullName;
+  }
+
+  private String computeFullName(String serializedName) {
     String fullName = deserializeAnySeparator ? PackageSeparator.fullNameForUnknownSerailization(serializedName)
         : packageSeparator.fullName(serializedName);
+    if (fullName == null) {
+      return null;
+    }
 
     int index = fullName.lastIndexOf('.');
     if (index >= 0) {
@@ -163,6 +223,6 @@ public class DefaultFieldNamingStrategy implements FieldNamingStrategy {
   }
 
   private String bareFieldNameOfSerializedName(String serializedName) {
-    return serializedFieldFormat.to(protobufFieldFormat, serializedName);
+    return bareFieldNames.getUnchecked(serializedName);
   }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core.config;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.protobuf.Descriptors.Descriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.ExtensionRegistry;
+
+/**
+ * Hash index from serialized field names to field descriptors for a single message type.
+ * <p>
+ * The index holds the serialized name of every declared field and every registered extension of the message. For
+ * extensions, the name using each {@link PackageSeparator} is also included when the naming strategy accepts it. Every
+ * indexed name is checked against {@link FieldNamingStrategy#fieldForSerializedName} when the index is built so lookups
+ * agree with the strategy. Names not in the index are resolved by the strategy directly.
+ * <p>
+ * In front of the hash index is a small identity table of name instances that have already been resolved. Parsers
+ * that canonicalize names, such as Jackson and Xerces, pass the same instance for every occurrence of a name, so most
+ * lookups are a reference comparison. The table is copied on write and stops growing once full, so parsers handing out
+ * new instances just fall back to the hash index. Unknown names are only remembered up to a separate small limit, so
+ * input full of arbitrary keys cannot take the room needed by the valid names.
+ */
+final class FieldNameIndex {
+  private static final int MAX_UNKNOWN = 16;
+
+  private final Descriptor message;
+  private final FieldNamingStrategy fieldNamingStrategy;
+  private final ExtensionRegistry extensionRegistry;
+  private final Map<String, FieldDescriptor> fields = new HashMap<String, FieldDescriptor>();
+  private final FieldOrder order;
+  private final int maxKnown;
+  private volatile Resolved[] resolved;
+  private int knownCount;
+  private int unknownCount;
+
+  FieldNameIndex(Descriptor message, Collection<FieldDescriptor> extensions, FieldNamingStrategy fieldNamingStrategy,
+      ExtensionRegistry extensionRegistry) {
+    this.message = message;
+    this.fieldNamingStrategy = fieldNamingStrategy;
+    this.extensionRegistry = extensionRegistry;
+    for (FieldDescriptor field : message.getFields()) {
+      add(fieldNamingStrategy.serializedName(field), field);
+    }
+    for (FieldDescriptor field : extensions) {
+      String serializedName = fieldNamingStrategy.serializedName(field);
+      add(serializedName, field);
+      String fullName = PackageSeparator.fullNameForUnknownSerailization(serializedName);
+      if (fullName != null) {
+        for (PackageSeparator separator : PackageSeparator.values()) {
+          add(separator.serializedName(fullName), field);
+        }
+      }
+    }
+    this.order = new FieldOrder(this, message.getFields().size());
+    this.maxKnown = 2 * fields.size() + 16;
+    // keep the load factor at most 1/2 so probes stay short
+    this.resolved = new Resolved[Integer.highestOneBit(maxKnown + MAX_UNKNOWN) << 2];
+  }
+
+  private void add(String serializedName, FieldDescriptor field) {
+    if (serializedName != null && !fields.containsKey(serializedName)
+        && field.equals(fieldNamingStrategy.fieldForSerializedName(message, serializedName, extensionRegistry))) {
+      fields.put(serializedName, field);
+    }
+  }
+
+  /**
+   * Get the field order predictor for the message.
+   */
+  FieldOrder order() {
+    return order;
+  }
+
+  /**
+   * Find the field for the serialized name, or {@code null} if the name is not valid for the message.
+   */
+  FieldDescriptor fieldForSerializedName(String serializedName) {
+    Resolved[] table = resolved;
+    int mask = table.length - 1;
+    for (int i = System.identityHashCode(serializedName) & mask; table[i] != null; i = (i + 1) & mask) {
+      if (table[i].serializedName == serializedName) {
+        return table[i].field;
+      }
+    }
+    FieldDescriptor field = fields.get(serializedName);
+    if (field == null) {
+      field = fieldNamingStrategy.fieldForSerializedName(message, serializedName, extensionRegistry);
+    }
+    if (hasRoomFor(field)) {
+      remember(serializedName, field);
+    }
+    return field;
+  }
+
+  private synchronized void remember(String serializedName, FieldDescriptor field) {
+    if (!hasRoomFor(field)) {
+      return;
+    }
+    Resolved[] table = resolved.clone();
+    int mask = table.length - 1;
+    int i = System.identityHashCode(serializedName) & mask;
+    for (; table[i] != null; i = (i + 1) & mask) {
+      if (table[i].serializedName == serializedName) {
+        return; // another thread got here first
+      }
+    }
+    table[i] = new Resolved(serializedName, field);
+    if (field == null) {
+      ++unknownCount;
+    }
+    else {
+      ++knownCount;
+    }
+    resolved = table;
+  }
+
+  private boolean hasRoomFor(FieldDescriptor field) {
+    return field == null ? unknownCount < MAX_UNKNOWN : knownCount < maxKnown;
+  }
+
+  private static final class Resolved {
+    final String serializedName;
+    // null for names that are not valid for the message
+    final FieldDescriptor field;
+
+    Resolved(String serializedName, FieldDescriptor field) {
+      this.serializedName = serializedName;
+      this.field = field;
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core.config;
+
+import java.util.Arrays;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+
+/**
+ * Predicts the fields of a message from the order in which they were last seen.
+ * <p>
+ * Writers such as {@link polybuf.core.DefaultMessageWriter} emit fields in descriptor order, so the n-th field name of
+ * a message is usually the same as in the previous message of that type. Readers pass the position of each name
+ * within its message. When the name matches the one last seen at that position, the remembered field is returned
+ * without a lookup. Otherwise the field is looked up and remembered for the next message.
+ * <p>
+ * Instances are shared by all readers of a configuration. Updates are racy but each remembered name and field are
+ * published together, so a stale prediction only costs a lookup.
+ * 
+ * @see ReaderConfig#fieldOrder
+ */
+public final class FieldOrder {
+  private final FieldNameIndex index;
+  // bounds the sequence remembered for messages with many unknown or extension names
+  private final int maxLength;
+  private volatile Slot[] slots;
+
+  FieldOrder(FieldNameIndex index, int fieldCount) {
+    this.index = index;
+    this.maxLength = 2 * fieldCount + 16;
+    this.slots = new Slot[Math.min(fieldCount, maxLength)];
+  }
+
+  /**
+   * Find the field for the serialized name seen at the specified position in its message, or {@code null} if the name
+   * is not valid for the message.
+   * 
+   * @param position zero-based position of the name among the names of the message
+   */
+  public FieldDescriptor fieldDescriptor(int position, String serializedName) {
+    Slot[] slots = this.slots;
+    if (position < slots.length) {
+      Slot slot = slots[position];
+      if (slot != null && (slot.serializedName == serializedName || slot.serializedName.equals(serializedName))) {
+        return slot.field;
+      }
+    }
+    FieldDescriptor field = index.fieldForSerializedName(serializedName);
+    if (position < maxLength) {
+      if (position >= slots.length) {
+        slots = Arrays.copyOf(slots, Math.min(Math.max(2 * slots.length, position + 1), maxLength));
+      }
+      slots[position] = new Slot(serializedName, field);
+      this.slots = slots;
+    }
+    return field;
+  }
+
+  private static final class Slot {
+    final String serializedName;
+    // null for names that are not valid for the message
+    final FieldDescriptor field;
+
+    Slot(String serializedName, FieldDescriptor field) {
+      this.serializedName = serializedName;
+      this.field = field;
+    }
+  }
+}
@@ -17,7 +17,6 @@
 
 package polybuf.core.config;
 
-import java.lang.reflect.Method;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -28,20 +27,21 @@ import com.google.protobuf.GeneratedMessage;
 import com.google.protobuf.Message;
 
 class GeneratedRootMessage extends RootMessage {
-  private final Method builderMethod;
+  // builders come from the default instance so only construction needs reflection
+  private final Message defaultInstance;
 
   public GeneratedRootMessage(Class<? extends GeneratedMessage> messageClass) {
     super(descriptor(messageClass));
-    this.builderMethod = builderMethod(messageClass);
-    assert isValid();
+    this.defaultInstance = defaultInstance(messageClass);
+    assert defaultInstance != null && isValid();
   }
 
   private static Descriptor descriptor(Class<? extends GeneratedMessage> messageClass) {
     return Reflection.invokeStaticGetter(messageClass, "getDescriptor", Descriptor.class);
   }
 
-  private static Method builderMethod(Class<? extends GeneratedMessage> messageClass) {
-    return Reflection.getStaticDeclaredMethodReturning(messageClass, "newBuilder", Message.Builder.class);
+  private static Message defaultInstance(Class<? extends GeneratedMessage> messageClass) {
+    return Reflection.invokeStaticGetter(messageClass, "getDefaultInstance", Message.class);
   }
 
   public static boolean isAnnotatedRoot(Class<? extends GeneratedMessage> messageClass) {
@@ -55,13 +55,7 @@ class GeneratedRootMessage extends RootMessage {
 
   @Override
   public Message.Builder newBuilder() {
-    Message.Builder builder = null;
-    try {
-      builder = (Message.Builder) builderMethod.invoke(null);
-    }
-    catch (Exception ex) {
-    }
-    return builder;
+    return defaultInstance.newBuilderForType();
   }
 
   public static class ClassVisitor implements GeneratedMessageVisitor {
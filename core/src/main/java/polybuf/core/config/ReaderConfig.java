@@ -18,11 +18,13 @@
 package polybuf.core.config;
 
 import polybuf.core.BuilderStack;
+import polybuf.core.MessageCodec;
 import polybuf.core.MessageReader;
 import polybuf.core.ScalarParser;
 
 import com.google.protobuf.Descriptors.Descriptor;
 import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
 
 /**
  * Subset of configuration information and convenience methods for implementing {@link MessageReader}.
@@ -39,6 +41,13 @@ public interface ReaderConfig {
    */
   BuilderStack builderStack(ScalarParser scalarParser);
 
+  /**
+   * Get the codec registered for the class of the builder, or {@code null} if its fields should be set reflectively.
+   * 
+   * @see SerializerConfig.Builder#registerCodec
+   */
+  MessageCodec codecForBuilder(Message.Builder builder);
+
   /**
    * Determine the message corresponding to this serialized name. Returns {@code null} if a root cannot be determined.
    * 
@@ -59,6 +68,11 @@ public interface ReaderConfig {
    */
   FieldDescriptor fieldDescriptor(Descriptor messageDescriptor, String serializedName);
 
+  /**
+   * Get the shared field order predictor for the specified message. Its lookups agree with {@link #fieldDescriptor}.
+   */
+  FieldOrder fieldOrder(Descriptor messageDescriptor);
+
   /**
    * Get the serialized root message name for the specified message.
    * 
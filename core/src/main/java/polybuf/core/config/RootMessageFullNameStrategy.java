@@ -91,6 +91,13 @@ public class RootMessageFullNameStrategy implements RootMessageNamingStrategy {
     return registry.messageForFullName(fullName);
   }
 
+  /**
+   * True if names mixing the configured separator with {@code '.'} are accepted on parsing.
+   */
+  boolean acceptsMixedSeparators() {
+    return !deserializeAnySeparator && packageSeparator != PackageSeparator.DOT;
+  }
+
   private String serializedNameOfFullName(String fullName) {
     return packageSeparator.serializedName(fullName);
   }
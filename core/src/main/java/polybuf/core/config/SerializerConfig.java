@@ -17,15 +17,27 @@
 
 package polybuf.core.config;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import polybuf.core.BuilderStack;
+import polybuf.core.MessageCodec;
 import polybuf.core.MessageReader;
 import polybuf.core.ScalarParser;
+import polybuf.core.util.Reflection;
 
+import com.google.common.base.Objects;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.SortedSetMultimap;
 import com.google.common.collect.TreeMultimap;
 import com.google.protobuf.Descriptors.Descriptor;
@@ -33,6 +45,7 @@ import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.ExtensionRegistry;
 import com.google.protobuf.GeneratedMessage;
 import com.google.protobuf.GeneratedMessage.GeneratedExtension;
+import com.google.protobuf.Message;
 
 /**
  * Immutable configuration class encapsulating information about the protobuf messages that can be read and written.
@@ -101,26 +114,39 @@ public class SerializerConfig {
   private final RootMessageRegistry rootMessageRegistry;
   private final ExtensionRegistry extensionRegistry;
   private final SortedSetMultimap<String, FieldDescriptor> extensionFields;
+  private final SetMultimap<String, FieldDescriptor> registeredExtensions;
+  private final ConcurrentMap<Descriptor, FieldNameIndex> fieldNameIndexes =
+      new ConcurrentHashMap<Descriptor, FieldNameIndex>();
   private final RootMessageNamingStrategy rootNamingStrategy;
   private final FieldNamingStrategy fieldNamingStrategy;
   private final String namespaceUri;
   private final boolean isStrict;
   private final boolean hasAmbiguousSerializedRootNames;
+  private final Map<String, RootMessage> rootsBySerializedName;
+  private final boolean hasCompleteRootIndex;
   private final ReaderConfig readerConfig;
+  private final Collection<MessageCodec> codecs;
+  private final Map<Class<?>, MessageCodec> codecsByBuilderClass;
 
   private SerializerConfig(GeneratedOuterClass outer, RootMessageNamingStrategy rootNamingStrategy,
       FieldNamingStrategy fieldNamingStrategy, SortedSetMultimap<String, FieldDescriptor> extensionFields,
-      String namespaceUri, RootMessageRegistry rootMessageRegistry, ExtensionRegistry extensionRegistry,
-      boolean isStrict) {
+      SetMultimap<String, FieldDescriptor> registeredExtensions, String namespaceUri,
+      RootMessageRegistry rootMessageRegistry, ExtensionRegistry extensionRegistry, boolean isStrict,
+      Collection<MessageCodec> codecs) {
     this.outer = outer;
     this.rootNamingStrategy = rootNamingStrategy;
     this.fieldNamingStrategy = fieldNamingStrategy;
     this.extensionFields = Multimaps.unmodifiableSortedSetMultimap(extensionFields);
+    this.registeredExtensions = Multimaps.unmodifiableSetMultimap(registeredExtensions);
     this.namespaceUri = namespaceUri;
     this.rootMessageRegistry = rootMessageRegistry;
     this.extensionRegistry = extensionRegistry.getUnmodifiable();
     this.isStrict = isStrict;
+    this.codecs = Collections.unmodifiableCollection(codecs);
+    this.codecsByBuilderClass = indexCodecsByBuilderClass();
     this.hasAmbiguousSerializedRootNames = determineAmbiguousSerializedRootNames();
+    this.rootsBySerializedName = indexSerializedRootNames();
+    this.hasCompleteRootIndex = determineCompleteRootIndex();
     this.readerConfig = new MyReaderConfig();
   }
 
@@ -165,6 +191,49 @@ public class SerializerConfig {
     return false;
   }
 
+  private Map<String, RootMessage> indexSerializedRootNames() {
+    Map<String, RootMessage> index = new HashMap<String, RootMessage>();
+    for (RootMessage root : getRoots()) {
+      Descriptor descriptor = root.getDescriptor();
+      indexSerializedRootName(index, serializedName(descriptor), root);
+      indexSerializedRootName(index, descriptor.getName(), root);
+      for (PackageSeparator separator : PackageSeparator.values()) {
+        indexSerializedRootName(index, separator.serializedName(descriptor.getFullName()), root);
+      }
+    }
+    return index;
+  }
+
+  private Map<Class<?>, MessageCodec> indexCodecsByBuilderClass() {
+    Map<Class<?>, MessageCodec> index = new HashMap<Class<?>, MessageCodec>();
+    for (MessageCodec codec : codecs) {
+      index.put(codec.builderClass(), codec);
+    }
+    return index;
+  }
+
+  private boolean determineCompleteRootIndex() {
+    // the provided strategies accept no names other than those indexed, so a miss means there is no such root
+    if (rootNamingStrategy.getClass() == RootMessageShortNameStrategy.class) {
+      return true;
+    }
+    if (rootNamingStrategy.getClass() == RootMessageFullNameStrategy.class) {
+      return !((RootMessageFullNameStrategy) rootNamingStrategy).acceptsMixedSeparators();
+    }
+    return false;
+  }
+
+  private void indexSerializedRootName(Map<String, RootMessage> index, String serializedName, RootMessage root) {
+    // only index names the strategy itself resolves to this root
+    if (!index.containsKey(serializedName) && root == rootForSerializedName(serializedName)) {
+      index.put(serializedName, root);
+    }
+  }
+
+  private RootMessage rootForSerializedName(String serializedName) {
+    return rootNamingStrategy.messageForSerializedName(outer.getFileDescriptor(), serializedName, rootMessageRegistry);
+  }
+
   /**
    * The configured strict {@code true} versus {@code compatible} mode.
    */
@@ -172,6 +241,15 @@ public class SerializerConfig {
     return isStrict;
   }
 
+  /**
+   * The registered codecs.
+   * 
+   * @see Builder#registerCodec
+   */
+  public Collection<MessageCodec> getCodecs() {
+    return codecs;
+  }
+
   /**
    * The configured field naming strategy.
    */
@@ -213,7 +291,20 @@ public class SerializerConfig {
    * @return The descriptor, if known, or {@code null} if no such name is valid for the given message
    */
   public FieldDescriptor fieldForSerializedName(Descriptor message, String serializedName) {
-    return fieldNamingStrategy.fieldForSerializedName(message, serializedName, extensionRegistry);
+    return fieldNameIndex(message).fieldForSerializedName(serializedName);
+  }
+
+  private FieldNameIndex fieldNameIndex(Descriptor message) {
+    FieldNameIndex index = fieldNameIndexes.get(message);
+    if (index == null) {
+      index = new FieldNameIndex(message, registeredExtensions.get(message.getFullName()), fieldNamingStrategy,
+          extensionRegistry);
+      FieldNameIndex existing = fieldNameIndexes.putIfAbsent(message, index);
+      if (existing != null) {
+        index = existing;
+      }
+    }
+    return index;
   }
 
   /**
@@ -291,10 +382,12 @@ public class SerializerConfig {
     private final ExtensionRegistry extensionRegistry = ExtensionRegistry.newInstance();
     private final RootMessageRegistry.Builder rootMessageBuilder = RootMessageRegistry.builder();
     private final SortedSetMultimap<String, FieldDescriptor> extensionFields = TreeMultimap.create();
+    private final SetMultimap<String, FieldDescriptor> registeredExtensions = HashMultimap.create();
     private String namespaceUri;
     private RootMessageNamingStrategy rootNamingStrategy;
     private FieldNamingStrategy fieldNamingStrategy;
     private boolean isStrict;
+    private final Map<Class<?>, MessageCodec> codecs = new LinkedHashMap<Class<?>, MessageCodec>();
 
     /**
      * Create a modifiable builder for the top-level class generated by the protobuf compiler.
@@ -392,6 +485,20 @@ public class SerializerConfig {
       return this;
     }
 
+    /**
+     * Register a codec, typically generated by the {@code polybuf-java-codegen} module, to write messages of its class
+     * and populate builders of its class in place of the reflective paths. A later registration for the same class
+     * replaces an earlier one.
+     * <p>
+     * Generated codecs embed the serialized field names of the configuration they were generated with, so
+     * {@link #build} fails with an {@code IllegalArgumentException} if those differ from the names of this builder's
+     * field naming strategy.
+     */
+    public Builder registerCodec(MessageCodec codec) {
+      codecs.put(codec.messageClass(), codec);
+      return this;
+    }
+
     /**
      * Generates an immutable serializer config.
      */
@@ -403,8 +510,28 @@ public class SerializerConfig {
           extensionFields.removeAll(fullName);
         }
       }
-      return new SerializerConfig(outer, rootNamingStrategy, fieldNamingStrategy, extensionFields, namespaceUri,
-          rootMessageBuilder.build(), extensionRegistry, isStrict);
+      for (MessageCodec codec : codecs.values()) {
+        checkCodecNames(codec);
+      }
+      return new SerializerConfig(outer, rootNamingStrategy, fieldNamingStrategy, extensionFields,
+          HashMultimap.create(registeredExtensions), namespaceUri, rootMessageBuilder.build(), extensionRegistry,
+          isStrict, new ArrayList<MessageCodec>(codecs.values()));
+    }
+
+    private void checkCodecNames(MessageCodec codec) {
+      Descriptor descriptor = Reflection.invokeStaticGetter(codec.messageClass(), "getDescriptor", Descriptor.class);
+      if (descriptor == null) {
+        throw new IllegalArgumentException("codec class " + codec.messageClass().getName()
+            + " is not a generated message");
+      }
+      for (FieldDescriptor field : descriptor.getFields()) {
+        String expected = fieldNamingStrategy.serializedName(field);
+        String embedded = codec.serializedName(field);
+        if (!Objects.equal(expected, embedded)) {
+          throw new IllegalArgumentException("codec for " + descriptor.getFullName() + " serializes field "
+              + field.getName() + " as " + embedded + " but the field naming strategy uses " + expected);
+        }
+      }
     }
 
     private void handleExtensions(GeneratedOuterClass outer) {
@@ -414,6 +541,7 @@ public class SerializerConfig {
         public void visit(GeneratedExtension<?, ?> extension) {
           FieldDescriptor field = extension.getDescriptor();
           extensionFields.put(field.getContainingType().getFullName(), field);
+          registeredExtensions.put(field.getContainingType().getFullName(), field);
         }
       });
       outer.registerAllExtensions(extensionRegistry);
@@ -436,15 +564,28 @@ public class SerializerConfig {
       return new BuilderStack(this, scalarParser);
     }
 
+    @Override
+    public MessageCodec codecForBuilder(Message.Builder builder) {
+      return codecsByBuilderClass.isEmpty() ? null : codecsByBuilderClass.get(builder.getClass());
+    }
+
     @Override
     public RootMessage messageForSerializedName(String serializedName) {
-      return rootNamingStrategy
-          .messageForSerializedName(outer.getFileDescriptor(), serializedName, rootMessageRegistry);
+      RootMessage root = rootsBySerializedName.get(serializedName);
+      if (root == null && !hasCompleteRootIndex) {
+        root = rootForSerializedName(serializedName);
+      }
+      return root;
     }
 
     @Override
     public FieldDescriptor fieldDescriptor(Descriptor messageDescriptor, String serializedName) {
-      return fieldNamingStrategy.fieldForSerializedName(messageDescriptor, serializedName, extensionRegistry);
+      return fieldForSerializedName(messageDescriptor, serializedName);
+    }
+
+    @Override
+    public FieldOrder fieldOrder(Descriptor messageDescriptor) {
+      return fieldNameIndex(messageDescriptor).order();
     }
 
     @Override
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package polybuf.core.util;
+
+import java.util.Arrays;
+
+import com.google.protobuf.ByteString;
+
+/**
+ * Base64 encoding into caller supplied character buffers and incremental decoding into a {@link ByteString}.
+ * <p>
+ * Uses the standard alphabet with padding and no line breaks, the same output as
+ * {@link org.apache.commons.codec.binary.Base64#encodeBase64String(byte[])}. Since every 3 bytes encode to exactly 4
+ * characters, large values can be encoded in chunks whose length is a multiple of 3 and the chunk outputs simply
+ * concatenated.
+ * 
+ * @see Decoder
+ */
+public final class Base64Codec {
+  private static final char[] alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+      .toCharArray();
+  private static final byte[] decodeTable = new byte[128];
+
+  static {
+    Arrays.fill(decodeTable, (byte) -1);
+    for (int i = 0; i < alphabet.length; ++i) {
+      decodeTable[alphabet[i]] = (byte) i;
+    }
+    // URL safe alphabet is accepted on decoding, as commons codec does
+    decodeTable['-'] = 62;
+    decodeTable['_'] = 63;
+  }
+
+  private Base64Codec() {
+  }
+
+  /**
+   * Decode the characters in a single pass. Equivalent to using a new {@link Decoder}.
+   */
+  public static ByteString decode(CharSequence chars) {
+    Decoder decoder = new Decoder(chars.length());
+    decoder.decode(chars);
+    return decoder.toByteString();
+  }
+
+  /**
+   * Number of characters needed to encode {@code length} bytes.
+   */
+  public static int encodedLength(int length) {
+    return (length + 2) / 3 * 4;
+  }
+
+  /**
+   * Encode bytes from the source into the target buffer starting at {@code targetOffset}, returning the end offset of
+   * the encoded characters. The target must have room for {@link #encodedLength} characters.
+   */
+  public static int encode(byte[] source, int offset, int length, char[] target, int targetOffset) {
+    int end = offset + length;
+    int fullEnd = end - length % 3;
+    int j = targetOffset;
+    int i = offset;
+    while (i < fullEnd) {
+      int bits = (source[i++] & 0xff) << 16 | (source[i++] & 0xff) << 8 | (source[i++] & 0xff);
+      target[j++] = alphabet[bits >>> 18];
+      target[j++] = alphabet[(bits >>> 12) & 0x3f];
+      target[j++] = alphabet[(bits >>> 6) & 0x3f];
+      target[j++] = alphabet[bits & 0x3f];
+    }
+    int remaining = end - fullEnd;
+    if (remaining > 0) {
+      int bits = (source[i] & 0xff) << 16;
+      if (remaining == 2) {
+        bits |= (source[i + 1] & 0xff) << 8;
+      }
+      target[j++] = alphabet[bits >>> 18];
+      target[j++] = alphabet[(bits >>> 12) & 0x3f];
+      target[j++] = remaining == 2 ? alphabet[(bits >>> 6) & 0x3f] : '=';
+      target[j++] = '=';
+    }
+    return j;
+  }
+
+  /**
+   * Decodes Base64 content that may arrive in several pieces, such as SAX character chunks, into a single byte array
+   * that is copied once into the resulting {@link ByteString}.
+   * <p>
+   * Decoding is lenient in the same way as {@link org.apache.commons.codec.binary.Base64#decodeBase64(String)}:
+   * characters outside the alphabet are skipped, decoding stops at the first pad character and a trailing partial
+   * group contributes the whole bytes it contains.
+   */
+  public static final class Decoder {
+    private byte[] output;
+    private int length;
+    private int bits;
+    private int count;
+    private boolean padded;
+
+    /**
+     * @param expectedLength expected number of encoded characters, used to size the output
+     */
+    public Decoder(int expectedLength) {
+      this.output = new byte[Math.max(expectedLength / 4 * 3, 16)];
+    }
+
+    public void decode(CharSequence chars) {
+      for (int i = 0, length = chars.length(); i < length && !padded; ++i) {
+        decode(chars.charAt(i));
+      }
+    }
+
+    public void decode(char[] chars, int offset, int length) {
+      for (int i = offset, end = offset + length; i < end && !padded; ++i) {
+        decode(chars[i]);
+      }
+    }
+
+    private void decode(char c) {
+      if (c == '=') {
+        padded = true;
+        return;
+      }
+      int value = c < 128 ? decodeTable[c] : -1;
+      if (value < 0) {
+        return;
+      }
+      bits = bits << 6 | value;
+      if (++count == 4) {
+        ensureCapacity(3);
+        output[length++] = (byte) (bits >> 16);
+        output[length++] = (byte) (bits >> 8);
+        output[length++] = (byte) bits;
+        bits = 0;
+        count = 0;
+      }
+    }
+
+    private void ensureCapacity(int additional) {
+      if (length + additional > output.length) {
+        output = Arrays.copyOf(output, Math.max(2 * output.length, length + additional));
+      }
+    }
+
+    /**
+     * Finish decoding and return the decoded bytes.
+     */
+    public ByteString toByteString() {
+      ensureCapacity(2);
+      if (count == 2) {
+        output[length++] = (byte) (bits >> 4);
+      }
+      else if (count == 3) {
+        output[length++] = (byte) (bits >> 10);
+        output[length++] = (byte) (bits >> 2);
+      }
+      count = 0;
+      return ByteString.copyFrom(output, 0, length);
+    }
+  }
+}
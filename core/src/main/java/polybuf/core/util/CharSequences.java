@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core.util;
+
+/**
+ * Parsing and comparison helpers that work directly on character sequences, avoiding an intermediate {@code String}.
+ * <p>
+ * The integer parsers accept the same input as their {@code java.lang} and Guava counterparts noted on each method.
+ */
+public final class CharSequences {
+  private static final long UNSIGNED_INT_MASK = 0xffffffffL;
+  // largest unsigned long divided by 10 and the remainder
+  private static final long MAX_UNSIGNED_LONG_DIV10 = 1844674407370955161L;
+  private static final int MAX_UNSIGNED_LONG_MOD10 = 5;
+
+  private CharSequences() {
+  }
+
+  /**
+   * Parse a signed decimal int as {@link Integer#parseInt(String)}.
+   */
+  public static int parseInt(CharSequence chars) {
+    long value = parseLong(chars);
+    if (value != (int) value) {
+      throw numberFormatException(chars);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Parse a signed decimal long as {@link Long#parseLong(String)}.
+   */
+  public static long parseLong(CharSequence chars) {
+    int length = chars.length();
+    if (length == 0) {
+      throw numberFormatException(chars);
+    }
+    int i = 0;
+    boolean isNegative = false;
+    char first = chars.charAt(0);
+    if (first == '-' || first == '+') {
+      isNegative = first == '-';
+      if (length == 1) {
+        throw numberFormatException(chars);
+      }
+      ++i;
+    }
+    // accumulate negatively so Long.MIN_VALUE does not overflow
+    long limit = isNegative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multiplicationLimit = limit / 10;
+    long value = 0;
+    for (; i < length; ++i) {
+      int digit = Character.digit(chars.charAt(i), 10);
+      if (digit < 0 || value < multiplicationLimit) {
+        throw numberFormatException(chars);
+      }
+      value *= 10;
+      if (value < limit + digit) {
+        throw numberFormatException(chars);
+      }
+      value -= digit;
+    }
+    return isNegative ? value : -value;
+  }
+
+  /**
+   * Parse an unsigned decimal int as Guava's {@code UnsignedInts.parseUnsignedInt}, returning the bits as an int.
+   */
+  public static int parseUnsignedInt(CharSequence chars) {
+    long value = parseLong(chars);
+    if ((value & UNSIGNED_INT_MASK) != value) {
+      throw numberFormatException(chars);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Parse an unsigned decimal long as Guava's {@code UnsignedLongs.parseUnsignedLong}, returning the bits as a long.
+   */
+  public static long parseUnsignedLong(CharSequence chars) {
+    int length = chars.length();
+    if (length == 0) {
+      throw new NumberFormatException("empty string");
+    }
+    long value = 0;
+    for (int i = 0; i < length; ++i) {
+      int digit = Character.digit(chars.charAt(i), 10);
+      if (digit < 0) {
+        throw numberFormatException(chars);
+      }
+      if (value < 0 || value > MAX_UNSIGNED_LONG_DIV10
+          || (value == MAX_UNSIGNED_LONG_DIV10 && digit > MAX_UNSIGNED_LONG_MOD10)) {
+        throw new NumberFormatException("Too large for unsigned long: " + chars);
+      }
+      value = value * 10 + digit;
+    }
+    return value;
+  }
+
+  /**
+   * Determine if the sequence has the same characters as the string.
+   */
+  public static boolean contentEquals(CharSequence chars, String string) {
+    int length = chars.length();
+    if (length != string.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; ++i) {
+      if (chars.charAt(i) != string.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compute the same hash code as {@link String#hashCode} would for a string with the same characters.
+   */
+  public static int hashCode(CharSequence chars) {
+    int hash = 0;
+    int length = chars.length();
+    for (int i = 0; i < length; ++i) {
+      hash = 31 * hash + chars.charAt(i);
+    }
+    return hash;
+  }
+
+  /**
+   * Determine if the sequence consists solely of XML ignorable whitespace.
+   * 
+   * @see CharacterRange#isIgnorableWhitespace
+   */
+  public static boolean isIgnorableWhitespace(CharSequence chars) {
+    int length = chars.length();
+    for (int i = 0; i < length; ++i) {
+      char c = chars.charAt(i);
+      if (!(c == ' ' || c == '\t' || c == '\n' || c == '\r')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static NumberFormatException numberFormatException(CharSequence chars) {
+    return new NumberFormatException("For input string: \"" + chars + "\"");
+  }
+}
@@ -21,8 +21,10 @@ import java.util.List;
 
 /**
  * Utility class for manipulating character array ranges.
+ * <p>
+ * Ranges are character sequences over the underlying array so they can be parsed without copying them into a string.
  */
-public class CharacterRange {
+public class CharacterRange implements CharSequence {
   private final char[] chars;
   private final int offset;
   private int length;
@@ -61,10 +63,30 @@ public class CharacterRange {
   /**
    * Number of characters in this range.
    */
+  @Override
   public int length() {
     return length;
   }
 
+  @Override
+  public char charAt(int index) {
+    if (index < 0 || index >= length) {
+      throw new IndexOutOfBoundsException("index: " + index);
+    }
+    return chars[offset + index];
+  }
+
+  /**
+   * Returns a range sharing the underlying character array.
+   */
+  @Override
+  public CharacterRange subSequence(int start, int end) {
+    if (start < 0 || end > length || start > end) {
+      throw new IndexOutOfBoundsException("start: " + start + " end: " + end);
+    }
+    return new CharacterRange(chars, offset + start, end - start);
+  }
+
   @Override
   public String toString() {
     return new String(chars, offset, length);
@@ -17,55 +17,59 @@
 
 package polybuf.core.util;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /**
  * A simple convenience class for accumulating content for parsers that do not support NIO, such as the SAX parsing
  * interface.
+ * <p>
+ * Appended characters are copied once into a single growable array that is reused after each clear, so content split
+ * across parser callbacks never needs to be joined and does not refer to the parser's own buffers.
  */
 public class ContentBuffer {
+  private char[] chars;
+  private int length;
 
-  private final LinkedList<CharacterRange> ranges = new LinkedList<CharacterRange>();
+  public ContentBuffer() {
+    this(256);
+  }
+
+  public ContentBuffer(int initialCapacity) {
+    this.chars = new char[Math.max(initialCapacity, 16)];
+  }
 
   /**
    * append the specified characters to the current buffer.
    */
   public void append(char[] chars, int offset, int length) {
-    CharacterRange range = new CharacterRange(chars, offset, length);
-    if (ranges.isEmpty()) {
-      ranges.add(range);
-      return;
-    }
-    CharacterRange last = ranges.peekLast();
-    if (last.isImmediatelyPreceding(range)) {
-      last.append(range);
-    }
-    else {
-      ranges.add(range);
+    int required = this.length + length;
+    if (required > this.chars.length) {
+      this.chars = Arrays.copyOf(this.chars, Math.max(2 * this.chars.length, required));
     }
+    System.arraycopy(chars, offset, this.chars, this.length, length);
+    this.length = required;
   }
 
   /**
    * clear the buffer.
    */
   public void clear() {
-    ranges.clear();
+    length = 0;
   }
 
   /**
    * Get the current contents of the buffer as a single character range and clear the buffer before returning. Returns
    * {@code null} if nothing has been appended to this buffer.
+   * <p>
+   * The range shares the buffer's array, so it is only valid until the next call to {@link #append}.
    */
   public CharacterRange getAndClear() {
-    if (ranges.size() == 0) {
+    if (length == 0) {
       return null;
     }
-    if (ranges.size() == 1) {
-      return ranges.pop();
-    }
-    CharacterRange joined = CharacterRange.join(ranges);
-    ranges.clear();
-    return joined;
+    CharacterRange range = new CharacterRange(chars, 0, length);
+    length = 0;
+    return range;
   }
 
   /**
@@ -74,8 +78,9 @@ public class ContentBuffer {
    * @see CharacterRange#isIgnorableWhitespace
    */
   public boolean isIgnorableWhitespace() {
-    for (CharacterRange range : ranges) {
-      if (!range.isIgnorableWhitespace()) {
+    for (int i = 0; i < length; ++i) {
+      char c = chars[i];
+      if (!(c == ' ' || c == '\t' || c == '\n' || c == '\r')) {
         return false;
       }
     }
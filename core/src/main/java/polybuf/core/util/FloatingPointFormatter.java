@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core.util;
+
+import java.math.BigInteger;
+
+/**
+ * Formats doubles and floats into character buffers using the shortest decimal that parses back to the same value.
+ * <p>
+ * This is Giulietti's Schubfach algorithm. The layout matches {@link Double#toString(double)} and
+ * {@link Float#toString(float)}: plain notation with at least one fraction digit when the magnitude is in
+ * {@code [1e-3, 1e7)}, otherwise computerized scientific notation such as {@code 1.0E-5}. Unlike some JDK versions, the
+ * digits are always the shortest that round trip.
+ */
+public final class FloatingPointFormatter {
+  /**
+   * Maximum number of characters written for a double.
+   */
+  public static final int MAX_DOUBLE_LENGTH = 24;
+
+  /**
+   * Maximum number of characters written for a float.
+   */
+  public static final int MAX_FLOAT_LENGTH = 15;
+
+  private static final int DOUBLE_Q_MIN = -1074;
+  private static final long DOUBLE_C_MIN = 1L << 52;
+  private static final int DOUBLE_H = 17;
+  private static final int FLOAT_Q_MIN = -149;
+  private static final int FLOAT_C_MIN = 1 << 23;
+  private static final int FLOAT_H = 9;
+  private static final int MASK_28 = (1 << 28) - 1;
+  private static final long MASK_32 = (1L << 32) - 1;
+  private static final long MASK_63 = (1L << 63) - 1;
+
+  // g = g1 2^63 + g0 approximates 10^-k, see Giulietti section 9
+  private static final int K_MIN = -324;
+  private static final int K_MAX = 292;
+  private static final long[] g = new long[2 * (K_MAX - K_MIN + 1)];
+
+  private static final long[] powersOfTen = new long[DOUBLE_H + 1];
+
+  static {
+    BigInteger mask = BigInteger.valueOf(MASK_63);
+    for (int k = K_MIN; k <= K_MAX; ++k) {
+      // 10^-k = beta 2^r with 2^125 <= beta < 2^126 and g = floor(beta) + 1
+      BigInteger beta;
+      if (k <= 0) {
+        BigInteger value = BigInteger.TEN.pow(-k);
+        int r = value.bitLength() - 126;
+        beta = r >= 0 ? value.shiftRight(r) : value.shiftLeft(-r);
+      }
+      else {
+        BigInteger divisor = BigInteger.TEN.pow(k);
+        beta = BigInteger.ONE.shiftLeft(125 + divisor.bitLength()).divide(divisor);
+      }
+      BigInteger value = beta.add(BigInteger.ONE);
+      g[2 * (k - K_MIN)] = value.shiftRight(63).longValue();
+      g[2 * (k - K_MIN) + 1] = value.and(mask).longValue();
+    }
+    long power = 1;
+    for (int i = 0; i < powersOfTen.length; ++i) {
+      powersOfTen[i] = power;
+      power *= 10;
+    }
+  }
+
+  private FloatingPointFormatter() {
+  }
+
+  /**
+   * Write the value to the buffer starting at the offset.
+   * 
+   * @return the offset just past the last character written, at most {@link #MAX_DOUBLE_LENGTH} characters after the
+   *         starting offset
+   */
+  public static int format(double value, char[] buffer, int offset) {
+    long bits = Double.doubleToRawLongBits(value);
+    long t = bits & (DOUBLE_C_MIN - 1);
+    int bq = (int) (bits >>> 52) & 0x7FF;
+    if (bq == 0x7FF) {
+      return append(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", buffer, offset);
+    }
+    int i = offset;
+    if (bits < 0) {
+      buffer[i++] = '-';
+    }
+    if (bq != 0) {
+      // normal
+      int mq = -DOUBLE_Q_MIN + 1 - bq;
+      long c = DOUBLE_C_MIN | t;
+      if (0 < mq && mq < 53) {
+        // integers are exact
+        long f = c >> mq;
+        if (f << mq == c) {
+          return toChars(f, 0, buffer, i);
+        }
+      }
+      return toDecimal(-mq, c, 0, buffer, i);
+    }
+    if (t != 0) {
+      // subnormal
+      return t < 3 ? toDecimal(DOUBLE_Q_MIN, 10 * t, -1, buffer, i) : toDecimal(DOUBLE_Q_MIN, t, 0, buffer, i);
+    }
+    return append("0.0", buffer, i);
+  }
+
+  /**
+   * Write the value to the buffer starting at the offset.
+   * 
+   * @return the offset just past the last character written, at most {@link #MAX_FLOAT_LENGTH} characters after the
+   *         starting offset
+   */
+  public static int format(float value, char[] buffer, int offset) {
+    int bits = Float.floatToRawIntBits(value);
+    int t = bits & (FLOAT_C_MIN - 1);
+    int bq = (bits >>> 23) & 0xFF;
+    if (bq == 0xFF) {
+      return append(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", buffer, offset);
+    }
+    int i = offset;
+    if (bits < 0) {
+      buffer[i++] = '-';
+    }
+    if (bq != 0) {
+      int mq = -FLOAT_Q_MIN + 1 - bq;
+      int c = FLOAT_C_MIN | t;
+      if (0 < mq && mq < 24) {
+        int f = c >> mq;
+        if (f << mq == c) {
+          return toChars(f, 0, buffer, i);
+        }
+      }
+      return toDecimal(-mq, c, 0, buffer, i);
+    }
+    if (t != 0) {
+      return t < 8 ? toDecimal(FLOAT_Q_MIN, 10 * t, -1, buffer, i) : toDecimal(FLOAT_Q_MIN, t, 0, buffer, i);
+    }
+    return append("0.0", buffer, i);
+  }
+
+  private static int toDecimal(int q, long c, int dk, char[] buffer, int i) {
+    int out = (int) c & 0x1;
+    long cb = c << 2;
+    long cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != DOUBLE_C_MIN || q == DOUBLE_Q_MIN) {
+      // regular spacing
+      cbl = cb - 2;
+      k = floorLog10Pow2(q);
+    }
+    else {
+      // irregular spacing
+      cbl = cb - 1;
+      k = floorLog10ThreeQuartersPow2(q);
+    }
+    int h = q + floorLog2Pow10(-k) + 2;
+    long g1 = g[2 * (k - K_MIN)];
+    long g0 = g[2 * (k - K_MIN) + 1];
+
+    long vb = roundToOdd(g1, g0, cb << h);
+    long vbl = roundToOdd(g1, g0, cbl << h);
+    long vbr = roundToOdd(g1, g0, cbr << h);
+
+    long s = vb >> 2;
+    if (s >= 100) {
+      // try one digit less, floor(s / 10) = floor(s 1844674407370955168 / 2^64)
+      long sp10 = 10 * FloatingPointParser.unsignedMultiplyHigh(s, 1844674407370955168L);
+      long tp10 = sp10 + 10;
+      boolean upin = vbl + out <= sp10 << 2;
+      boolean wpin = (tp10 << 2) + out <= vbr;
+      if (upin != wpin) {
+        return toChars(upin ? sp10 : tp10, k, buffer, i);
+      }
+    }
+    long t = s + 1;
+    boolean uin = vbl + out <= s << 2;
+    boolean win = (t << 2) + out <= vbr;
+    if (uin != win) {
+      return toChars(uin ? s : t, k + dk, buffer, i);
+    }
+    // both are in the rounding interval, pick the closest
+    long cmp = vb - ((s + t) << 1);
+    return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buffer, i);
+  }
+
+  private static int toDecimal(int q, int c, int dk, char[] buffer, int i) {
+    int out = c & 0x1;
+    long cb = (long) c << 2;
+    long cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != FLOAT_C_MIN || q == FLOAT_Q_MIN) {
+      cbl = cb - 2;
+      k = floorLog10Pow2(q);
+    }
+    else {
+      cbl = cb - 1;
+      k = floorLog10ThreeQuartersPow2(q);
+    }
+    int h = q + floorLog2Pow10(-k) + 33;
+    long g1 = g[2 * (k - K_MIN)] + 1;
+
+    int vb = roundToOdd(g1, cb << h);
+    int vbl = roundToOdd(g1, cbl << h);
+    int vbr = roundToOdd(g1, cbr << h);
+
+    int s = vb >> 2;
+    if (s >= 100) {
+      // floor(s / 10) = floor(s 1717986919 / 2^34)
+      int sp10 = 10 * (int) (s * 1717986919L >>> 34);
+      int tp10 = sp10 + 10;
+      boolean upin = vbl + out <= sp10 << 2;
+      boolean wpin = (tp10 << 2) + out <= vbr;
+      if (upin != wpin) {
+        return toChars(upin ? sp10 : tp10, k, buffer, i);
+      }
+    }
+    int t = s + 1;
+    boolean uin = vbl + out <= s << 2;
+    boolean win = (t << 2) + out <= vbr;
+    if (uin != win) {
+      return toChars(uin ? s : t, k + dk, buffer, i);
+    }
+    int cmp = vb - ((s + t) << 1);
+    return toChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, buffer, i);
+  }
+
+  // round to odd of cp g 2^-127
+  private static long roundToOdd(long g1, long g0, long cp) {
+    long x1 = FloatingPointParser.unsignedMultiplyHigh(g0, cp);
+    long y0 = g1 * cp;
+    long y1 = FloatingPointParser.unsignedMultiplyHigh(g1, cp);
+    long z = (y0 >>> 1) + x1;
+    long vbp = y1 + (z >>> 63);
+    return vbp | ((z & MASK_63) + MASK_63) >>> 63;
+  }
+
+  // round to odd of cp g 2^-95
+  private static int roundToOdd(long g, long cp) {
+    long x1 = FloatingPointParser.unsignedMultiplyHigh(g, cp);
+    long vbp = x1 >>> 31;
+    return (int) (vbp | ((x1 & MASK_32) + MASK_32) >>> 32);
+  }
+
+  private static int floorLog10Pow2(int e) {
+    return (int) (e * 661971961083L >> 41);
+  }
+
+  private static int floorLog10ThreeQuartersPow2(int e) {
+    return (int) (e * 661971961083L - 274743187321L >> 41);
+  }
+
+  private static int floorLog2Pow10(int e) {
+    return (int) (e * 913124641741L >> 38);
+  }
+
+  // f 10^e with f having at most 17 digits
+  private static int toChars(long f, int e, char[] buffer, int i) {
+    int length = floorLog10Pow2(64 - Long.numberOfLeadingZeros(f));
+    if (f >= powersOfTen[length]) {
+      length += 1;
+    }
+    // normalize so 10^16 <= f < 10^17 and the value is 0.f 10^e
+    f *= powersOfTen[DOUBLE_H - length];
+    e += length;
+    // split into the first digit and two blocks of eight
+    long hm = FloatingPointParser.unsignedMultiplyHigh(f, 193428131138340668L) >>> 20;
+    int l = (int) (f - 100000000L * hm);
+    int h = (int) (hm * 1441151881L >>> 57);
+    int m = (int) (hm - 100000000 * h);
+    if (0 < e && e <= 7) {
+      // plain without leading zeros
+      buffer[i++] = digit(h);
+      int y = scaledDigits(m);
+      int j = 1;
+      for (; j < e; ++j) {
+        int t = 10 * y;
+        buffer[i++] = digit(t >>> 28);
+        y = t & MASK_28;
+      }
+      buffer[i++] = '.';
+      for (; j <= 8; ++j) {
+        int t = 10 * y;
+        buffer[i++] = digit(t >>> 28);
+        y = t & MASK_28;
+      }
+      i = lowDigits(l, buffer, i);
+      return i;
+    }
+    if (-3 < e && e <= 0) {
+      // plain with leading zeros
+      buffer[i++] = '0';
+      buffer[i++] = '.';
+      for (; e < 0; ++e) {
+        buffer[i++] = '0';
+      }
+      buffer[i++] = digit(h);
+      i = append8Digits(m, buffer, i);
+      return lowDigits(l, buffer, i);
+    }
+    buffer[i++] = digit(h);
+    buffer[i++] = '.';
+    i = append8Digits(m, buffer, i);
+    i = lowDigits(l, buffer, i);
+    return exponent(e - 1, buffer, i);
+  }
+
+  // f 10^e with f having at most 9 digits
+  private static int toChars(int f, int e, char[] buffer, int i) {
+    int length = floorLog10Pow2(32 - Integer.numberOfLeadingZeros(f));
+    if (f >= powersOfTen[length]) {
+      length += 1;
+    }
+    f *= (int) powersOfTen[FLOAT_H - length];
+    e += length;
+    int h = (int) (f * 1441151881L >>> 57);
+    int l = f - 100000000 * h;
+    if (0 < e && e <= 7) {
+      buffer[i++] = digit(h);
+      int y = scaledDigits(l);
+      int j = 1;
+      for (; j < e; ++j) {
+        int t = 10 * y;
+        buffer[i++] = digit(t >>> 28);
+        y = t & MASK_28;
+      }
+      buffer[i++] = '.';
+      for (; j <= 8; ++j) {
+        int t = 10 * y;
+        buffer[i++] = digit(t >>> 28);
+        y = t & MASK_28;
+      }
+      return removeTrailingZeros(buffer, i);
+    }
+    if (-3 < e && e <= 0) {
+      buffer[i++] = '0';
+      buffer[i++] = '.';
+      for (; e < 0; ++e) {
+        buffer[i++] = '0';
+      }
+      buffer[i++] = digit(h);
+      i = append8Digits(l, buffer, i);
+      return removeTrailingZeros(buffer, i);
+    }
+    buffer[i++] = digit(h);
+    buffer[i++] = '.';
+    i = append8Digits(l, buffer, i);
+    i = removeTrailingZeros(buffer, i);
+    return exponent(e - 1, buffer, i);
+  }
+
+  private static int lowDigits(int l, char[] buffer, int i) {
+    if (l != 0) {
+      i = append8Digits(l, buffer, i);
+    }
+    return removeTrailingZeros(buffer, i);
+  }
+
+  // left to right digit extraction of a number below 10^8
+  private static int append8Digits(int m, char[] buffer, int i) {
+    int y = scaledDigits(m);
+    for (int j = 0; j < 8; ++j) {
+      int t = 10 * y;
+      buffer[i++] = digit(t >>> 28);
+      y = t & MASK_28;
+    }
+    return i;
+  }
+
+  // floor((a + 1) 2^28 / 10^8) - 1
+  private static int scaledDigits(int a) {
+    return (int) (FloatingPointParser.unsignedMultiplyHigh((long) (a + 1) << 28, 193428131138340668L) >>> 20) - 1;
+  }
+
+  // keep the zero directly after the decimal point
+  private static int removeTrailingZeros(char[] buffer, int i) {
+    while (buffer[i - 1] == '0') {
+      --i;
+    }
+    if (buffer[i - 1] == '.') {
+      ++i;
+    }
+    return i;
+  }
+
+  private static int exponent(int e, char[] buffer, int i) {
+    buffer[i++] = 'E';
+    if (e < 0) {
+      buffer[i++] = '-';
+      e = -e;
+    }
+    if (e < 10) {
+      buffer[i++] = digit(e);
+      return i;
+    }
+    if (e >= 100) {
+      int d = e * 1311 >>> 17;
+      buffer[i++] = digit(d);
+      e -= 100 * d;
+    }
+    int d = e * 103 >>> 10;
+    buffer[i++] = digit(d);
+    buffer[i++] = digit(e - 10 * d);
+    return i;
+  }
+
+  private static char digit(int d) {
+    return (char) ('0' + d);
+  }
+
+  private static int append(String string, char[] buffer, int i) {
+    int length = string.length();
+    string.getChars(0, length, buffer, i);
+    return i + length;
+  }
+}
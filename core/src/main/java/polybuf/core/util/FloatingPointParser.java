@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core.util;
+
+import java.math.BigInteger;
+
+/**
+ * Single pass validating parser for decimal floating point numbers.
+ * <p>
+ * Accepts {@code [+-]?(\d+(\.\d*)?|\.\d+)([eE][+-]?\d+)?}, which excludes the hexadecimal, whitespace and type suffix
+ * forms accepted by {@link Double#parseDouble}. Values are correctly rounded. Most inputs are converted using Clinger's
+ * exact fast path or the Eisel-Lemire algorithm. The few inputs those can not decide, along with subnormal and
+ * overflowing values, fall back to the JDK parser.
+ */
+public final class FloatingPointParser {
+  // range and 128 bit truncated mantissas of the powers of ten used by Eisel-Lemire
+  private static final int MIN_POWER = -348;
+  private static final int MAX_POWER = 347;
+  private static final long[] powersHigh = new long[MAX_POWER - MIN_POWER + 1];
+  private static final long[] powersLow = new long[MAX_POWER - MIN_POWER + 1];
+
+  private static final double[] exactDoublePowers = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+  private static final float[] exactFloatPowers = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
+  private static final int MAX_MANTISSA_DIGITS = 19;
+  private static final int MAX_EXPONENT = 100000;
+  private static final long FAILED = -1L;
+
+  static {
+    BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+    for (int power = MIN_POWER; power <= MAX_POWER; ++power) {
+      BigInteger mantissa;
+      if (power >= 0) {
+        BigInteger value = BigInteger.TEN.pow(power);
+        int shift = value.bitLength() - 128;
+        mantissa = shift > 0 ? value.shiftRight(shift) : value.shiftLeft(-shift);
+      }
+      else {
+        BigInteger divisor = BigInteger.TEN.pow(-power);
+        mantissa = BigInteger.ONE.shiftLeft(127 + divisor.bitLength()).divide(divisor);
+      }
+      powersHigh[power - MIN_POWER] = mantissa.shiftRight(64).longValue();
+      powersLow[power - MIN_POWER] = mantissa.and(mask).longValue();
+    }
+  }
+
+  private enum Format {
+    DOUBLE(52, 1023, 0x7FF, 0x1FFL, 9, 22, 1L << 53),
+    FLOAT(23, 127, 0xFF, 0x3FFFFFFFFFL, 38, 10, 1L << 24);
+
+    final int mantissaBits;
+    final int exponentBias;
+    final int infiniteExponent;
+    final long halfwayMask;
+    final int halfwayBits;
+    final int maxExactPower;
+    final long maxExactMantissa;
+
+    private Format(int mantissaBits, int exponentBias, int infiniteExponent, long halfwayMask, int halfwayBits,
+        int maxExactPower, long maxExactMantissa) {
+      this.mantissaBits = mantissaBits;
+      this.exponentBias = exponentBias;
+      this.infiniteExponent = infiniteExponent;
+      this.halfwayMask = halfwayMask;
+      this.halfwayBits = halfwayBits;
+      this.maxExactPower = maxExactPower;
+      this.maxExactMantissa = maxExactMantissa;
+    }
+  }
+
+  private FloatingPointParser() {
+  }
+
+  /**
+   * Parse a double.
+   * 
+   * @throws NumberFormatException if the characters do not match the accepted grammar
+   */
+  public static double parseDouble(CharSequence chars) {
+    return Double.longBitsToDouble(parse(chars, Format.DOUBLE));
+  }
+
+  /**
+   * Parse a float.
+   * 
+   * @throws NumberFormatException if the characters do not match the accepted grammar
+   */
+  public static float parseFloat(CharSequence chars) {
+    return Float.intBitsToFloat((int) parse(chars, Format.FLOAT));
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static long parse(CharSequence chars, Format format) {
+    int length = chars.length();
+    int i = 0;
+    boolean isNegative = false;
+    if (length > 0 && (chars.charAt(0) == '-' || chars.charAt(0) == '+')) {
+      isNegative = chars.charAt(0) == '-';
+      ++i;
+    }
+
+    // first 19 significant digits fit in an unsigned long
+    long mantissa = 0;
+    int mantissaDigits = 0;
+    int exponent = 0;
+    boolean isTruncated = false;
+    char c;
+
+    int integerStart = i;
+    while (i < length && isDigit(c = chars.charAt(i))) {
+      if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+        mantissa = 10 * mantissa + (c - '0');
+        if (mantissa != 0) {
+          ++mantissaDigits;
+        }
+      }
+      else {
+        ++exponent;
+        isTruncated |= c != '0';
+      }
+      ++i;
+    }
+    boolean hasDigits = i > integerStart;
+
+    if (i < length && chars.charAt(i) == '.') {
+      ++i;
+      int fractionStart = i;
+      while (i < length && isDigit(c = chars.charAt(i))) {
+        if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+          mantissa = 10 * mantissa + (c - '0');
+          if (mantissa != 0) {
+            ++mantissaDigits;
+          }
+          --exponent;
+        }
+        else {
+          isTruncated |= c != '0';
+        }
+        ++i;
+      }
+      hasDigits |= i > fractionStart;
+    }
+    if (!hasDigits) {
+      throw numberFormatException(chars);
+    }
+
+    if (i < length && ((c = chars.charAt(i)) == 'e' || c == 'E')) {
+      ++i;
+      boolean isNegativeExponent = false;
+      if (i < length && ((c = chars.charAt(i)) == '-' || c == '+')) {
+        isNegativeExponent = c == '-';
+        ++i;
+      }
+      int exponentStart = i;
+      int explicitExponent = 0;
+      while (i < length && isDigit(c = chars.charAt(i))) {
+        // saturate, anything this large is zero or infinite anyway
+        if (explicitExponent < MAX_EXPONENT) {
+          explicitExponent = 10 * explicitExponent + (c - '0');
+        }
+        ++i;
+      }
+      if (i == exponentStart) {
+        throw numberFormatException(chars);
+      }
+      exponent += isNegativeExponent ? -explicitExponent : explicitExponent;
+    }
+    if (i != length) {
+      throw numberFormatException(chars);
+    }
+
+    long bits = toBits(mantissa, exponent, isTruncated, format);
+    if (bits == FAILED) {
+      // the grammar is a subset of the JDK's
+      String string = chars.toString();
+      return format == Format.DOUBLE ? Double.doubleToRawLongBits(Double.parseDouble(string))
+          : Float.floatToRawIntBits(Float.parseFloat(string));
+    }
+    if (isNegative) {
+      bits |= format == Format.DOUBLE ? Long.MIN_VALUE : 0x80000000L;
+    }
+    return bits;
+  }
+
+  // bits of the absolute value, or FAILED if the value needs the slow path
+  private static long toBits(long mantissa, int exponent, boolean isTruncated, Format format) {
+    if (mantissa == 0) {
+      return 0;
+    }
+    if (!isTruncated && mantissa > 0 && mantissa <= format.maxExactMantissa && exponent >= -format.maxExactPower
+        && exponent <= format.maxExactPower) {
+      // Clinger's fast path, both operands are exact so the result is correctly rounded
+      if (format == Format.DOUBLE) {
+        double value = mantissa;
+        value = exponent < 0 ? value / exactDoublePowers[-exponent] : value * exactDoublePowers[exponent];
+        return Double.doubleToRawLongBits(value);
+      }
+      float value = mantissa;
+      value = exponent < 0 ? value / exactFloatPowers[-exponent] : value * exactFloatPowers[exponent];
+      return Float.floatToRawIntBits(value) & 0xFFFFFFFFL;
+    }
+    long bits = eiselLemire(mantissa, exponent, format);
+    if (isTruncated && bits != FAILED && bits != eiselLemire(mantissa + 1, exponent, format)) {
+      // dropped digits could change the rounding
+      return FAILED;
+    }
+    return bits;
+  }
+
+  private static long eiselLemire(long mantissa, int exponent, Format format) {
+    if (exponent < MIN_POWER || exponent > MAX_POWER) {
+      return FAILED;
+    }
+    int leadingZeros = Long.numberOfLeadingZeros(mantissa);
+    mantissa <<= leadingZeros;
+    // 217706 / 2^16 approximates log2(10)
+    long binaryExponent = ((217706L * exponent) >> 16) + 64 + format.exponentBias - leadingZeros;
+
+    long powerHigh = powersHigh[exponent - MIN_POWER];
+    long high = unsignedMultiplyHigh(mantissa, powerHigh);
+    long low = mantissa * powerHigh;
+    long halfwayMask = format.halfwayMask;
+    if ((high & halfwayMask) == halfwayMask && isUnsignedLess(low + mantissa, mantissa)) {
+      // use the low 64 bits of the power for a wider approximation
+      long powerLow = powersLow[exponent - MIN_POWER];
+      long lowHigh = unsignedMultiplyHigh(mantissa, powerLow);
+      long lowLow = mantissa * powerLow;
+      long mergedHigh = high;
+      long mergedLow = low + lowHigh;
+      if (isUnsignedLess(mergedLow, low)) {
+        ++mergedHigh;
+      }
+      if ((mergedHigh & halfwayMask) == halfwayMask && mergedLow + 1 == 0
+          && isUnsignedLess(lowLow + mantissa, mantissa)) {
+        return FAILED;
+      }
+      high = mergedHigh;
+      low = mergedLow;
+    }
+
+    int msb = (int) (high >>> 63);
+    long result = high >>> (msb + format.halfwayBits);
+    binaryExponent -= 1 ^ msb;
+
+    if (low == 0 && (high & halfwayMask) == 0 && (result & 3) == 1) {
+      // exactly half way, leave round to even to the slow path
+      return FAILED;
+    }
+
+    result += result & 1;
+    result >>>= 1;
+    if ((result >>> (format.mantissaBits + 1)) != 0) {
+      result >>>= 1;
+      ++binaryExponent;
+    }
+    if (binaryExponent <= 0 || binaryExponent >= format.infiniteExponent) {
+      // subnormal or infinite
+      return FAILED;
+    }
+    return binaryExponent << format.mantissaBits | (result & ((1L << format.mantissaBits) - 1));
+  }
+
+  private static boolean isUnsignedLess(long a, long b) {
+    return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+  }
+
+  static long unsignedMultiplyHigh(long x, long y) {
+    long x0 = x & 0xFFFFFFFFL;
+    long x1 = x >>> 32;
+    long y0 = y & 0xFFFFFFFFL;
+    long y1 = y >>> 32;
+    long p01 = x0 * y1;
+    long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL);
+    return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+  }
+
+  private static NumberFormatException numberFormatException(CharSequence chars) {
+    return new NumberFormatException("For input string: \"" + chars + "\"");
+  }
+}
@@ -20,6 +20,8 @@ package polybuf.core.util;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 
+import com.google.protobuf.Descriptors.FieldDescriptor;
+
 public class Reflection {
 
   /**
@@ -68,4 +70,33 @@ public class Reflection {
     }
     return null;
   }
+
+  /**
+   * Capitalized camel case name used by protoc for the accessors of a field, e.g. {@code "PhoneNumber"} for
+   * {@code phone_number}.
+   */
+  public static String accessorName(FieldDescriptor field) {
+    String name = field.getName();
+    StringBuilder result = new StringBuilder(name.length());
+    boolean capitalizeNext = true;
+    for (int i = 0; i < name.length(); ++i) {
+      char c = name.charAt(i);
+      if ('a' <= c && c <= 'z') {
+        result.append(capitalizeNext ? Character.toUpperCase(c) : c);
+        capitalizeNext = false;
+      }
+      else if ('A' <= c && c <= 'Z') {
+        result.append(c);
+        capitalizeNext = false;
+      }
+      else if ('0' <= c && c <= '9') {
+        result.append(c);
+        capitalizeNext = true;
+      }
+      else {
+        capitalizeNext = true;
+      }
+    }
+    return result.toString();
+  }
 }
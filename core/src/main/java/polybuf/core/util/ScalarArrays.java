@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.core.util;
+
+/**
+ * Growable scratch arrays for unboxing the elements of repeated scalar fields before a single bulk encoder call.
+ * <p>
+ * Each array is only grown, never shrunk, so a field is written without allocation once the array has reached the
+ * size of the largest field seen. Returned arrays may be longer than requested and are only valid until the next
+ * request for the same element type, so writers fill an array and hand it to the encoder before writing anything else.
+ * Writers are shared between threads, so they use the instance of the current thread.
+ */
+public class ScalarArrays {
+  private static final ThreadLocal<ScalarArrays> forThread = new ThreadLocal<ScalarArrays>() {
+    @Override
+    protected ScalarArrays initialValue() {
+      return new ScalarArrays();
+    }
+  };
+
+  private int[] ints = new int[0];
+  private long[] longs = new long[0];
+  private float[] floats = new float[0];
+  private double[] doubles = new double[0];
+  private boolean[] booleans = new boolean[0];
+
+  /**
+   * Get the scratch arrays of the current thread.
+   */
+  public static ScalarArrays forCurrentThread() {
+    return forThread.get();
+  }
+
+  /**
+   * Get an array with at least {@code length} elements.
+   */
+  public int[] ints(int length) {
+    if (ints.length < length) {
+      ints = new int[capacity(ints.length, length)];
+    }
+    return ints;
+  }
+
+  /**
+   * @see #ints(int)
+   */
+  public long[] longs(int length) {
+    if (longs.length < length) {
+      longs = new long[capacity(longs.length, length)];
+    }
+    return longs;
+  }
+
+  /**
+   * @see #ints(int)
+   */
+  public float[] floats(int length) {
+    if (floats.length < length) {
+      floats = new float[capacity(floats.length, length)];
+    }
+    return floats;
+  }
+
+  /**
+   * @see #ints(int)
+   */
+  public double[] doubles(int length) {
+    if (doubles.length < length) {
+      doubles = new double[capacity(doubles.length, length)];
+    }
+    return doubles;
+  }
+
+  /**
+   * @see #ints(int)
+   */
+  public boolean[] booleans(int length) {
+    if (booleans.length < length) {
+      booleans = new boolean[capacity(booleans.length, length)];
+    }
+    return booleans;
+  }
+
+  private static int capacity(int current, int required) {
+    return Math.max(Math.max(2 * current, 16), required);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+
+package polybuf.core.util;
+
+/**
+ * Formats 64 bit values as unsigned decimal strings into caller supplied character buffers, without the
+ * {@link java.math.BigInteger} or {@code UnsignedLong} that would otherwise be needed for values of {@code 2^63} and
+ * above.
+ */
+public final class UnsignedLongFormatter {
+  /**
+   * Maximum number of characters written, the length of {@code "18446744073709551615"}.
+   */
+  public static final int MAX_LENGTH = 20;
+
+  private UnsignedLongFormatter() {
+  }
+
+  /**
+   * Write the decimal representation of {@code value}, interpreted as unsigned, into the buffer starting at
+   * {@code offset}. The buffer must have room for {@link #MAX_LENGTH} characters.
+   * 
+   * @return the end offset of the written characters
+   */
+  public static int format(long value, char[] buffer, int offset) {
+    long quotient = value;
+    int lastDigit = -1;
+    if (value < 0) {
+      // divide the unsigned value by 10 using a shift to get into signed range
+      quotient = (value >>> 1) / 5;
+      lastDigit = (int) (value - quotient * 10);
+    }
+    int end = offset + digitCount(quotient) + (lastDigit < 0 ? 0 : 1);
+    int i = end;
+    if (lastDigit >= 0) {
+      buffer[--i] = (char) ('0' + lastDigit);
+    }
+    do {
+      buffer[--i] = (char) ('0' + quotient % 10);
+      quotient /= 10;
+    } while (quotient != 0);
+    return end;
+  }
+
+  private static int digitCount(long value) {
+    int count = 1;
+    for (long limit = 10; value >= limit && count < 19; limit *= 10) {
+      ++count;
+    }
+    return count;
+  }
+}
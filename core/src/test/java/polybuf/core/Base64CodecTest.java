@@ -0,0 +1,61 @@
+package polybuf.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Test;
+
+import polybuf.core.util.Base64Codec;
+
+import com.google.protobuf.ByteString;
+
+public class Base64CodecTest {
+
+  @Test
+  public void matchesCommonsCodec() {
+    Random random = new Random(0);
+    for (int length = 0; length < 100; ++length) {
+      byte[] bytes = new byte[length];
+      random.nextBytes(bytes);
+      char[] chars = new char[Base64Codec.encodedLength(length)];
+      int end = Base64Codec.encode(bytes, 0, length, chars, 0);
+      assertEquals(chars.length, end);
+      assertEquals(Base64.encodeBase64String(bytes), new String(chars));
+    }
+  }
+
+  @Test
+  public void chunksConcatenate() {
+    byte[] bytes = new byte[1000];
+    new Random(0).nextBytes(bytes);
+    StringBuilder encoded = new StringBuilder();
+    char[] chars = new char[Base64Codec.encodedLength(30)];
+    for (int offset = 0; offset < bytes.length; offset += 30) {
+      int end = Base64Codec.encode(bytes, offset, Math.min(30, bytes.length - offset), chars, 0);
+      encoded.append(chars, 0, end);
+    }
+    assertEquals(Base64.encodeBase64String(bytes), encoded.toString());
+  }
+
+  @Test
+  public void decodesInChunks() {
+    byte[] bytes = new byte[10000];
+    new Random(0).nextBytes(bytes);
+    char[] chars = Base64.encodeBase64String(bytes).toCharArray();
+    Base64Codec.Decoder decoder = new Base64Codec.Decoder(chars.length);
+    for (int offset = 0; offset < chars.length; offset += 7) {
+      decoder.decode(chars, offset, Math.min(7, chars.length - offset));
+    }
+    assertEquals(ByteString.copyFrom(bytes), decoder.toByteString());
+  }
+
+  @Test
+  public void decodesLikeCommonsCodec() {
+    String[] strings = { "", "abc", "abC=", "aI==", "a", "ab==cd", "a b\nc!d", "-_-_", "\u00e9QUJD" };
+    for (String string : strings) {
+      assertEquals(string, ByteString.copyFrom(Base64.decodeBase64(string)), Base64Codec.decode(string));
+    }
+  }
+}
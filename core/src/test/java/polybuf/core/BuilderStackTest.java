@@ -2,6 +2,7 @@ package polybuf.core;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
 import java.util.NoSuchElementException;
 
 import org.apache.commons.codec.binary.Base64;
@@ -11,6 +12,9 @@ import polybuf.core.config.SerializerConfig;
 import polybuf.core.test.Coverage;
 import polybuf.core.util.CharacterRange;
 
+import com.google.protobuf.Descriptors.EnumValueDescriptor;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
 import com.google.protobuf.Message.Builder;
 
 
@@ -399,4 +403,91 @@ public class BuilderStackTest {
     stack.pushRoot("coverage.Message");
     stack.addOrSetScalarField("required", StructureContext.OBJECT, new CharacterRange(DefaultStringParserTest.invalidLengthBase64), ScalarContext.QUOTED);
   }
+
+  @Test
+  public void reusedAfterClear() throws Exception {
+    BuilderStack stack = stack(compatible);
+    stack.pushRoot("coverage.Message");
+    stack.pushField("required", StructureContext.OBJECT);
+    stack.pushField("unknown", StructureContext.OBJECT);
+    for (int i = 0; i < 20; ++i) {
+      stack.pushField("nested" + i, StructureContext.OBJECT);
+    }
+    stack.clear();
+    assertTrue(stack.isEmpty());
+
+    for (int i = 0; i < 2; ++i) {
+      stack.pushRoot("coverage.Message");
+      stack.pushField("unknown", StructureContext.OBJECT);
+      stack.pushField("nested", StructureContext.OBJECT);
+      stack.popField("nested");
+      stack.popField("unknown");
+      stack.pushField("required", StructureContext.OBJECT);
+      stack.addOrSetScalarField("required", StructureContext.OBJECT, new CharacterRange("true"), ScalarContext.UNQUOTED);
+      stack.popField("required");
+      Builder builder = stack.popRoot("coverage.Message");
+      assertTrue(stack.isEmpty());
+      assertEquals(Coverage.Message.newBuilder().setRequired(Coverage.Bool.newBuilder().setRequired(true)).build(),
+          builder.build());
+    }
+  }
+
+  @Test
+  public void registeredCodecSetsFields() throws Exception {
+    EnumCodec codec = new EnumCodec();
+    BuilderStack stack = new BuilderStack(SerializerConfig.builder(Coverage.class).setIsStrict(strict)
+        .registerCodec(codec).build().readerConfig(), new TestParser(new DefaultStringParser()));
+    stack.pushRoot("coverage.Enum");
+    stack.addOrSetScalarField("required", StructureContext.OBJECT, new CharacterRange("B"), ScalarContext.QUOTED);
+    stack.addOrSetScalarField("repeated", StructureContext.ARRAY, new CharacterRange("C"), ScalarContext.QUOTED);
+    stack.addOrSetScalarField("repeated", StructureContext.ARRAY, new CharacterRange("A"), ScalarContext.QUOTED);
+    Builder builder = stack.popRoot("coverage.Enum");
+    assertEquals(Coverage.Enum.newBuilder().setRequired(Coverage.Enum1.B).addRepeated(Coverage.Enum1.C)
+        .addRepeated(Coverage.Enum1.A).build(), builder.build());
+    // repeated values are declined by the codec and set reflectively
+    assertEquals(3, codec.calls);
+
+    stack.pushRoot("coverage.Message");
+    stack.pushField("repeated", StructureContext.ARRAY);
+    stack.addOrSetScalarField("required", StructureContext.OBJECT, new CharacterRange("true"), ScalarContext.UNQUOTED);
+    stack.popField("repeated");
+    builder = stack.popRoot("coverage.Message");
+    assertEquals(Coverage.Message.newBuilder().addRepeated(Coverage.Bool.newBuilder().setRequired(true)).buildPartial(),
+        builder.buildPartial());
+    assertEquals(3, codec.calls);
+  }
+
+  private static class EnumCodec implements MessageCodec {
+    int calls;
+
+    @Override
+    public Class<Coverage.Enum> messageClass() {
+      return Coverage.Enum.class;
+    }
+
+    @Override
+    public Class<Coverage.Enum.Builder> builderClass() {
+      return Coverage.Enum.Builder.class;
+    }
+
+    @Override
+    public void writeContents(Encoder encoder, Message message) throws IOException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addOrSet(Builder builder, FieldDescriptor field, Object value) {
+      ++calls;
+      if (field.getNumber() == Coverage.Enum.REQUIRED_FIELD_NUMBER) {
+        ((Coverage.Enum.Builder) builder).setRequired(Coverage.Enum1.valueOf((EnumValueDescriptor) value));
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public String serializedName(FieldDescriptor field) {
+      return field.getName();
+    }
+  }
 }
@@ -0,0 +1,54 @@
+package polybuf.core;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import polybuf.core.util.ContentBuffer;
+
+public class ContentBufferTest {
+
+  @Test
+  public void empty() {
+    ContentBuffer buffer = new ContentBuffer();
+    assertNull(buffer.getAndClear());
+    assertTrue(buffer.isIgnorableWhitespace());
+  }
+
+  @Test
+  public void copiesChunks() {
+    ContentBuffer buffer = new ContentBuffer(16);
+    char[] parserBuffer = "abc def".toCharArray();
+    buffer.append(parserBuffer, 0, 3);
+    buffer.append(parserBuffer, 3, 4);
+    parserBuffer[0] = 'x'; // parser reuses its buffer
+    assertFalse(buffer.isIgnorableWhitespace());
+    assertEquals("abc def", buffer.getAndClear().toString());
+    assertNull(buffer.getAndClear());
+  }
+
+  @Test
+  public void grows() {
+    ContentBuffer buffer = new ContentBuffer(16);
+    StringBuilder expected = new StringBuilder();
+    char[] chunk = "0123456789".toCharArray();
+    for (int i = 0; i < 100; ++i) {
+      buffer.append(chunk, i % 10, 10 - i % 10);
+      expected.append(chunk, i % 10, 10 - i % 10);
+    }
+    assertEquals(expected.toString(), buffer.getAndClear().toString());
+    buffer.append(chunk, 0, 2);
+    assertEquals("01", buffer.getAndClear().toString());
+  }
+
+  @Test
+  public void whitespace() {
+    ContentBuffer buffer = new ContentBuffer();
+    char[] chars = " \t\r\n".toCharArray();
+    buffer.append(chars, 0, chars.length);
+    buffer.append(chars, 1, 2);
+    assertTrue(buffer.isIgnorableWhitespace());
+    buffer.clear();
+    assertNull(buffer.getAndClear());
+  }
+}
@@ -81,6 +81,29 @@ public class DefaultMessageWriterTest {
         "endRootMessage bool\n", log.toString());
   }
 
+
+  @Test
+  public void repeatedScalarFieldsShareScratchArray() throws IOException {
+    Coverage.Bool longer = Coverage.Bool.newBuilder().setRequired(true).addRepeated(true).addRepeated(true).build();
+    Coverage.Bool shorter = Coverage.Bool.newBuilder().setRequired(false).addRepeated(false).build();
+    writer.writeTo("bools", Arrays.asList(longer, shorter), log);
+    assertEquals(
+        "startRootList bools\n"+
+        "startRepeatedRoot bools\n"+
+        "scalarBooleanField required true\n"+
+        "startRepeatedField repeated\n"+
+        "repeatedScalarBooleanField repeated true\n"+
+        "repeatedScalarBooleanField repeated true\n"+
+        "endRepeatedField repeated\n"+
+        "endRepeatedRoot bools\n"+
+        "startRepeatedRoot bools\n"+
+        "scalarBooleanField required false\n"+
+        "startRepeatedField repeated\n"+
+        "repeatedScalarBooleanField repeated false\n"+
+        "endRepeatedField repeated\n"+
+        "endRepeatedRoot bools\n"+
+        "endRootList bools\n", log.toString());
+  }
   
   @Test
   public void singleAndRepeatedMessageFields() throws IOException {
@@ -0,0 +1,67 @@
+package polybuf.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import polybuf.core.util.FloatingPointFormatter;
+
+public class FloatingPointFormatterTest {
+  private final char[] buffer = new char[FloatingPointFormatter.MAX_DOUBLE_LENGTH];
+
+  private String format(double value) {
+    return new String(buffer, 0, FloatingPointFormatter.format(value, buffer, 0));
+  }
+
+  private String format(float value) {
+    return new String(buffer, 0, FloatingPointFormatter.format(value, buffer, 0));
+  }
+
+  private void assertRoundTrips(double value) {
+    String string = format(value);
+    assertEquals(string, Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(Double.parseDouble(string)));
+    assertTrue(string, string.length() <= Double.toString(value).length());
+  }
+
+  private void assertRoundTrips(float value) {
+    String string = format(value);
+    assertEquals(string, Float.floatToRawIntBits(value), Float.floatToRawIntBits(Float.parseFloat(string)));
+    assertTrue(string, string.length() <= Float.toString(value).length());
+  }
+
+  @Test
+  public void layout() {
+    assertEquals("0.0", format(0.0));
+    assertEquals("-0.0", format(-0.0));
+    assertEquals("1.0", format(1.0));
+    assertEquals("0.001", format(0.001));
+    assertEquals("1.0E-5", format(1e-5));
+    assertEquals("1234567.0", format(1234567.0));
+    assertEquals("1.0E7", format(1e7));
+    assertEquals("2.0E23", format(2e23));
+    assertEquals("1.7976931348623157E308", format(Double.MAX_VALUE));
+    assertEquals("0.1", format(0.1f));
+    assertEquals("3.4028235E38", format(Float.MAX_VALUE));
+    assertEquals("1.4E-45", format(Float.MIN_VALUE));
+    assertEquals("NaN", format(Double.NaN));
+    assertEquals("-Infinity", format(Float.NEGATIVE_INFINITY));
+  }
+
+  @Test
+  public void randomValues() {
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; ++i) {
+      double d = Double.longBitsToDouble(random.nextLong());
+      if (!Double.isNaN(d) && !Double.isInfinite(d)) {
+        assertRoundTrips(d);
+      }
+      float f = Float.intBitsToFloat(random.nextInt());
+      if (!Float.isNaN(f) && !Float.isInfinite(f)) {
+        assertRoundTrips(f);
+      }
+      assertRoundTrips(random.nextDouble());
+    }
+  }
+}
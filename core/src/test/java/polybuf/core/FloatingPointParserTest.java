@@ -0,0 +1,65 @@
+package polybuf.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import polybuf.core.util.FloatingPointParser;
+
+public class FloatingPointParserTest {
+
+  private static void assertMatchesJdk(String string) {
+    assertEquals(string, Double.doubleToRawLongBits(Double.parseDouble(string)),
+        Double.doubleToRawLongBits(FloatingPointParser.parseDouble(string)));
+    assertEquals(string, Float.floatToRawIntBits(Float.parseFloat(string)),
+        Float.floatToRawIntBits(FloatingPointParser.parseFloat(string)));
+  }
+
+  private static void assertInvalid(String string) {
+    try {
+      FloatingPointParser.parseDouble(string);
+      fail(string);
+    }
+    catch (NumberFormatException ex) {
+    }
+  }
+
+  @Test
+  public void edgeCases() {
+    String[] strings = { "0", "-0", "-.0", "1.", "0.1", "0.3", "9007199254740993", "4.9e-324",
+        "2.4703282292062327e-324", "2.2250738585072011e-308", "1.7976931348623157e308", "1.7976931348623159e308",
+        "1e-400", "1e400", "3.4028235e38", "3.4028236e38", "1.4e-45", "16777217", "33554435",
+        "123456789012345678901234567890", "1.00000000000000000000000000000000001", "1e99999999999" };
+    for (String string : strings) {
+      assertMatchesJdk(string);
+    }
+  }
+
+  @Test
+  public void randomValues() {
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; ++i) {
+      assertMatchesJdk(Double.toString(Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE)).replace("Infinity",
+          "1").replace("NaN", "2"));
+      assertMatchesJdk(Double.toString(random.nextDouble() * 1000));
+      assertMatchesJdk(Float.toString(random.nextFloat()));
+    }
+  }
+
+  @Test
+  public void grammar() {
+    assertInvalid("");
+    assertInvalid(".");
+    assertInvalid("-");
+    assertInvalid("1.1.");
+    assertInvalid("e9");
+    assertInvalid("1e");
+    assertInvalid("1e+");
+    assertInvalid(" 1");
+    assertInvalid("1d");
+    assertInvalid("Infinity");
+    assertInvalid("0x1p3");
+  }
+}
@@ -2,7 +2,10 @@ package polybuf.core;
 
 import java.io.IOException;
 
+import org.apache.commons.codec.binary.Base64;
+
 import com.google.common.primitives.UnsignedLong;
+import com.google.protobuf.ByteString;
 
 public class LoggingEncoder implements Encoder {
   private final StringBuilder log;
@@ -100,6 +103,11 @@ public class LoggingEncoder implements Encoder {
     log.append("scalarUnsignedLongField ").append(fieldName).append(" ").append(fieldValue).append("\n");
   }
 
+  @Override
+  public void scalarUnsignedField(String fieldName, long fieldValue) throws IOException {
+    scalarField(fieldName, UnsignedLong.asUnsigned(fieldValue));
+  }
+
   @Override
   public void scalarField(String fieldName, float fieldValue) throws IOException {
     log.append("scalarFloatField ").append(fieldName).append(" ").append(fieldValue).append("\n");
@@ -115,6 +123,11 @@ public class LoggingEncoder implements Encoder {
     log.append("scalarStringField ").append(fieldName).append(" ").append(fieldValue).append("\n");
   }
 
+  @Override
+  public void scalarField(String fieldName, ByteString fieldValue) throws IOException {
+    scalarField(fieldName, Base64.encodeBase64String(fieldValue.toByteArray()));
+  }
+
   @Override
   public void repeatedScalarField(String fieldName, boolean fieldValue) throws IOException {
     log.append("repeatedScalarBooleanField ").append(fieldName).append(" ").append(fieldValue).append("\n");
@@ -135,6 +148,11 @@ public class LoggingEncoder implements Encoder {
     log.append("repeatedScalarUnsignedLongField ").append(fieldName).append(" ").append(fieldValue).append("\n");
   }
 
+  @Override
+  public void repeatedScalarUnsignedField(String fieldName, long fieldValue) throws IOException {
+    repeatedScalarField(fieldName, UnsignedLong.asUnsigned(fieldValue));
+  }
+
   @Override
   public void repeatedScalarField(String fieldName, float fieldValue) throws IOException {
     log.append("repeatedScalarFloatField ").append(fieldName).append(" ").append(fieldValue).append("\n");
@@ -149,4 +167,52 @@ public class LoggingEncoder implements Encoder {
   public void repeatedScalarField(String fieldName, String fieldValue) throws IOException {
     log.append("repeatedScalarStringField ").append(fieldName).append(" ").append(fieldValue).append("\n");
   }
-}
\ No newline at end of file
+
+  @Override
+  public void repeatedScalarField(String fieldName, ByteString fieldValue) throws IOException {
+    repeatedScalarField(fieldName, Base64.encodeBase64String(fieldValue.toByteArray()));
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, int[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      repeatedScalarField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, long[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      repeatedScalarField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarUnsignedField(String fieldName, long[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      repeatedScalarUnsignedField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, float[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      repeatedScalarField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, double[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      repeatedScalarField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, boolean[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      repeatedScalarField(fieldName, fieldValues[i]);
+    }
+  }
+
+}
@@ -7,6 +7,7 @@ import org.apache.commons.codec.binary.Base64;
 import org.junit.Test;
 
 import polybuf.core.test.Coverage;
+import polybuf.core.util.CharacterRange;
 import polybuf.core.util.Reflection;
 
 import com.google.protobuf.ByteString;
@@ -472,4 +473,53 @@ public class ScalarParserTest {
     assertParseException(descriptor, MIN_SIGNED_LONG_MINUS1, context);
     assertParseException(descriptor, MAX_UNSIGNED_LONG_PLUS1, context);
   }
+
+  @Test
+  public void characterRanges() {
+    char[] chars = "[-42,18446744073709551615,true,B,text]".toCharArray();
+    assertEquals(Integer.valueOf(-42),
+        parser.parse(requiredField(Coverage.Int32.class), new CharacterRange(chars, 1, 3), ScalarContext.UNQUOTED, strict));
+    assertEquals(Long.valueOf(-1),
+        parser.parse(requiredField(Coverage.Uint64.class), new CharacterRange(chars, 5, 20), ScalarContext.UNQUOTED, strict));
+    assertEquals(Boolean.TRUE,
+        parser.parse(requiredField(Coverage.Bool.class), new CharacterRange(chars, 26, 4), ScalarContext.UNQUOTED, strict));
+    assertEquals(Coverage.Enum1.B.getValueDescriptor(),
+        parser.parse(requiredField(Coverage.Enum.class), new CharacterRange(chars, 31, 1), ScalarContext.QUOTED, strict));
+    assertEquals("text",
+        parser.parse(requiredField(Coverage.String1.class), new CharacterRange(chars, 33, 4), ScalarContext.QUOTED, strict));
+  }
+
+  @Test
+  public void stringOnlyHooks() {
+    // TestParser and this string parser only implement the String versions
+    StringParser stringParser = new StringParser() {
+      @Override
+      public ByteString asStrictBytes(String string) {
+        return ByteString.copyFromUtf8(string);
+      }
+
+      @Override
+      public String asCompatibleString(String string) {
+        return string;
+      }
+
+      @Override
+      public ByteString asCompatibleBytes(String string) {
+        return ByteString.copyFromUtf8(string);
+      }
+
+      @Override
+      public ByteString asCompatibleMessageBytes(String string) {
+        return ByteString.copyFromUtf8(string);
+      }
+    };
+    ScalarParser stringOnly = new TestParser(stringParser);
+    char[] chars = "[Infinity,bytes,0]".toCharArray();
+    assertEquals(Double.POSITIVE_INFINITY, stringOnly.parse(requiredField(Coverage.Double.class),
+        new CharacterRange(chars, 1, 8), ScalarContext.UNQUOTED, strict));
+    assertEquals(ByteString.copyFromUtf8("bytes"), stringOnly.parse(requiredField(Coverage.Bytes.class),
+        new CharacterRange(chars, 10, 5), ScalarContext.QUOTED, strict));
+    assertEquals(Boolean.FALSE, stringOnly.parse(requiredField(Coverage.Bool.class),
+        new CharacterRange(chars, 16, 1), ScalarContext.UNQUOTED, strict));
+  }
 }
@@ -2,11 +2,15 @@ package polybuf.core;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+
 import org.junit.Test;
 
+import polybuf.core.config.FieldOrder;
 import polybuf.core.config.RootMessage;
 import polybuf.core.config.RootMessageShortNameStrategy;
 import polybuf.core.config.SerializerConfig;
+import polybuf.core.test.Coverage;
 import polybuf.core.test.ExtensionsBase;
 import polybuf.core.test.ExtensionsExt;
 import polybuf.core.test.ExtensionsExtSamePackage;
@@ -138,4 +142,100 @@ public class SerializerConfigTest {
     assertEquals(ExtensionsBase.Message1.getDescriptor().findFieldByNumber(ExtensionsBase.Message1.ID_FIELD_NUMBER),
         field(ExtensionsBase.Message1.getDescriptor(), "id"));  // id is also in base message so we get that
   }
+
+  @Test
+  public void fieldIndexFallsBackToNamingStrategy() throws Exception {
+    config = SerializerConfig.of(ExtensionsExt.class);
+    Descriptor message = ExtensionsBase.Message1.getDescriptor();
+    assertEquals(ExtensionsExt.baseType.getDescriptor(), field(message, "ext$baseType")); // indexed
+    assertEquals(ExtensionsExt.baseType.getDescriptor(), field(message, "ext.base_type")); // not indexed
+    assertEquals(config.fieldForSerializedName(message, "ext-baseType"), field(message, "ext-baseType"));
+    assertNull(field(message, "unknown"));
+  }
+
+  @Test
+  public void fieldIndexResolvesNameInstances() throws Exception {
+    config = SerializerConfig.of(ExtensionsExt.class);
+    Descriptor message = ExtensionsBase.Message1.getDescriptor();
+    FieldDescriptor id = message.findFieldByNumber(ExtensionsBase.Message1.ID_FIELD_NUMBER);
+    String canonical = "id";
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(id, field(message, canonical));
+      assertEquals(id, field(message, new String(canonical))); // same name, different instance
+      assertNull(field(message, "unknown"));
+    }
+    for (int i = 0; i < 1000; ++i) {
+      assertNull(field(message, "unknown" + i)); // more unknown instances than the identity table remembers
+    }
+    assertEquals(id, field(message, new String(canonical)));
+    String late = new String("ext.baseType"); // first seen after the unknown names
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(ExtensionsExt.baseType.getDescriptor(), field(message, late));
+    }
+    assertEquals(ExtensionsExt.baseType.getDescriptor(), field(message, "ext$baseType"));
+  }
+
+  @Test
+  public void fieldOrderAgreesWithIndex() throws Exception {
+    config = SerializerConfig.of(Coverage.class);
+    Descriptor message = Coverage.Bool.getDescriptor();
+    FieldOrder order = config.readerConfig().fieldOrder(message);
+    String[][] sequences = {
+        { "required", "optional", "repeated" },
+        { "required", "optional", "repeated" }, // predicted
+        { "optional", "unknown", "required", "defaulted" }, // mispredicted
+        { "required", "optional", "repeated" } };
+    for (String[] sequence : sequences) {
+      for (int position = 0; position < sequence.length; ++position) {
+        String name = sequence[position];
+        assertEquals(name, field(message, name), order.fieldDescriptor(position, name));
+      }
+    }
+    assertNull(order.fieldDescriptor(1000, "unknown"));
+  }
+
+  @Test
+  public void codecNamesMustMatchFieldNamingStrategy() throws Exception {
+    config = SerializerConfig.builder(Coverage.class).registerCodec(new BoolCodec("")).build();
+    assertEquals(1, config.getCodecs().size());
+    try {
+      SerializerConfig.builder(Coverage.class).registerCodec(new BoolCodec("x")).build();
+      fail("codec names differ from the field naming strategy");
+    }
+    catch (IllegalArgumentException ex) {
+    }
+  }
+
+  private static class BoolCodec implements MessageCodec {
+    private final String prefix;
+
+    BoolCodec(String prefix) {
+      this.prefix = prefix;
+    }
+
+    @Override
+    public Class<Coverage.Bool> messageClass() {
+      return Coverage.Bool.class;
+    }
+
+    @Override
+    public Class<Coverage.Bool.Builder> builderClass() {
+      return Coverage.Bool.Builder.class;
+    }
+
+    @Override
+    public void writeContents(Encoder encoder, Message message) throws IOException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean addOrSet(Message.Builder builder, FieldDescriptor field, Object value) {
+      return false;
+    }
+
+    @Override
+    public String serializedName(FieldDescriptor field) {
+      return prefix + field.getName();
+    }
+  }
 }
@@ -0,0 +1,37 @@
+package polybuf.core;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import polybuf.core.util.UnsignedLongFormatter;
+
+import com.google.common.primitives.UnsignedLong;
+
+public class UnsignedLongFormatterTest {
+  private final char[] buffer = new char[UnsignedLongFormatter.MAX_LENGTH + 1];
+
+  private void assertFormats(long value) {
+    int end = UnsignedLongFormatter.format(value, buffer, 1);
+    assertEquals(UnsignedLong.asUnsigned(value).toString(), new String(buffer, 1, end - 1));
+  }
+
+  @Test
+  public void edgeCases() {
+    long[] values = { 0, 1, 9, 10, 999999999999999999L, 1000000000000000000L, Long.MAX_VALUE, Long.MIN_VALUE, -1 };
+    for (long value : values) {
+      assertFormats(value);
+    }
+  }
+
+  @Test
+  public void randomValues() {
+    Random random = new Random(0);
+    for (int i = 0; i < 100000; ++i) {
+      assertFormats(random.nextLong());
+      assertFormats(random.nextLong() >>> random.nextInt(64));
+    }
+  }
+}
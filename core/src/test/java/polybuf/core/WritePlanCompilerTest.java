@@ -0,0 +1,112 @@
+package polybuf.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import polybuf.core.config.DefaultFieldNamingStrategy;
+import polybuf.core.test.Coverage;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.DynamicMessage;
+import com.google.protobuf.Message;
+
+public class WritePlanCompilerTest {
+
+  private WritePlanCompiler compiler;
+
+  @Before
+  public void init() {
+    compiler = new WritePlanCompiler(new DefaultFieldNamingStrategy());
+  }
+
+  @Test
+  public void planIsCompiledOnce() {
+    MessageWritePlan plan = compiler.plan(Coverage.Message.getDescriptor());
+    assertSame(plan, compiler.plan(Coverage.Message.getDescriptor()));
+    assertEquals(Coverage.Message.getDescriptor(), plan.getDescriptor());
+  }
+
+  @Test
+  public void recursivePlansShareCache() {
+    MessageWritePlan nested = compiler.plan(Coverage.Bool.getDescriptor());
+    compiler.plan(Coverage.Message.getDescriptor());
+    assertSame(nested, compiler.plan(Coverage.Bool.getDescriptor()));
+  }
+
+  @Test
+  public void dynamicMessageMatchesGenerated() throws IOException {
+    Coverage.Bool bool = Coverage.Bool.newBuilder().setRequired(true).setDefaulted(false).addRepeated(false).build();
+    Coverage.Message generated = Coverage.Message.newBuilder().setRequired(bool).addRepeated(bool).build();
+    Message dynamic = DynamicMessage.newBuilder(Coverage.Message.getDescriptor()).mergeFrom(generated).build();
+
+    assertEquals(write(generated), write(dynamic));
+  }
+
+  @Test
+  public void registeredCodecReplacesPlan() throws IOException {
+    MessageCodec codec = new BoolCodec();
+    WritePlanCompiler codecs = new WritePlanCompiler(new DefaultFieldNamingStrategy(),
+        Collections.<MessageCodec> singletonList(codec));
+    Coverage.Bool bool = Coverage.Bool.newBuilder().setRequired(true).addRepeated(false).build();
+    Coverage.Message message = Coverage.Message.newBuilder().setRequired(bool).addRepeated(bool).build();
+
+    assertSame(codec, codecs.contentWriter(bool));
+    assertSame(codecs.plan(Coverage.Message.getDescriptor()), codecs.contentWriter(message));
+    Message dynamic = DynamicMessage.newBuilder(Coverage.Bool.getDescriptor()).mergeFrom(bool).build();
+    assertSame(codecs.plan(Coverage.Bool.getDescriptor()), codecs.contentWriter(dynamic));
+    // nested messages are written by the codec
+    String expected = write(compiler, message).replace("repeatedScalarBooleanField repeated false",
+        "repeatedScalarStringField repeated codec");
+    assertEquals(expected, write(codecs, message));
+  }
+
+  private static class BoolCodec implements MessageCodec {
+    @Override
+    public Class<Coverage.Bool> messageClass() {
+      return Coverage.Bool.class;
+    }
+
+    @Override
+    public Class<Coverage.Bool.Builder> builderClass() {
+      return Coverage.Bool.Builder.class;
+    }
+
+    @Override
+    public void writeContents(Encoder encoder, Message message) throws IOException {
+      Coverage.Bool bool = (Coverage.Bool) message;
+      encoder.scalarField("required", bool.getRequired());
+      encoder.startRepeatedField("repeated");
+      encoder.repeatedScalarField("repeated", "codec");
+      encoder.endRepeatedField("repeated");
+    }
+
+    @Override
+    public boolean addOrSet(Message.Builder builder, FieldDescriptor field, Object value) {
+      return false;
+    }
+
+    @Override
+    public String serializedName(FieldDescriptor field) {
+      return field.getName();
+    }
+  }
+
+  private static String write(WritePlanCompiler compiler, Message message) throws IOException {
+    StringBuilder log = new StringBuilder();
+    compiler.contentWriter(message).writeContents(new LoggingEncoder(log), message);
+    return log.toString();
+  }
+
+  private String write(Message message) throws IOException {
+    StringBuilder log = new StringBuilder();
+    new DefaultMessageWriter<StringBuilder>(LoggingEncoder.factory(), new DefaultFieldNamingStrategy()).writeTo(
+        "message", message, log);
+    return log.toString();
+  }
+}
@@ -24,6 +24,7 @@ import java.util.List;
 
 import polybuf.core.EncoderFactory;
 import polybuf.core.MessageReaderFactory;
+import polybuf.core.RootCursor;
 import polybuf.core.Serializer;
 import polybuf.core.config.ReaderConfig;
 import polybuf.core.config.SerializerConfig;
@@ -79,6 +80,22 @@ public class BareJson {
     };
   }
 
+  /**
+   * Encoder factory flushing the output stream as described in
+   * {@link JsonEncoderFactory#JsonEncoderFactory(JsonFactory, int)}. The JSON factory may be {@code null} to use the
+   * default one.
+   */
+  public static EncoderFactory<OutputStream> encoderFactory(JsonFactory jsonFactory, int flushThreshold) {
+    return new JsonEncoderFactory(jsonFactory, flushThreshold) {
+      @Override
+      public polybuf.core.Encoder encoder(OutputStream stream) throws IOException {
+        FlushingOutputStream flushingStream = flushingStream(stream);
+        return flushingStream == null ? new Encoder(generator(stream)) : new Encoder(generator(flushingStream),
+            flushingStream);
+      }
+    };
+  }
+
   public static MessageReaderFactory<InputStream> readerFactory() {
     return new MessageReaderFactory<InputStream>() {
 
@@ -99,6 +116,10 @@ public class BareJson {
       super(generator);
     }
 
+    private Encoder(JsonGenerator generator, FlushingOutputStream flushingStream) {
+      super(generator, flushingStream);
+    }
+
     /**
      * Writes a bare {@code '['}.
      */
@@ -159,5 +180,18 @@ public class BareJson {
     public <T extends Builder> List<T> mergeRepeatedFrom(T prototype, InputStream stream) throws IOException {
       return mergeArray(prototype, newJsonParser(stream));
     }
+
+    /**
+     * Always throws {@link UnsupportedOperationException}.
+     */
+    @Override
+    public RootCursor<Builder> mergeRepeatedRootsCursor(InputStream stream) throws IOException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T extends Builder> RootCursor<T> mergeRepeatedCursor(T prototype, InputStream stream) throws IOException {
+      return arrayCursor(prototype, newJsonParser(stream), 0);
+    }
   }
 }
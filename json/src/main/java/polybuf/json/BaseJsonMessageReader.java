@@ -21,7 +21,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 
-import polybuf.core.MessageReader;
+import polybuf.core.RootCursor;
+import polybuf.core.StreamingMessageReader;
 import polybuf.core.config.ReaderConfig;
 
 import com.fasterxml.jackson.core.JsonParser;
@@ -31,7 +32,7 @@ import com.google.protobuf.Message.Builder;
 /**
  * Base JSON Message reader.
  */
-public abstract class BaseJsonMessageReader implements MessageReader<InputStream> {
+public abstract class BaseJsonMessageReader implements StreamingMessageReader<InputStream> {
 
   private final JsonParserReader reader;
 
@@ -47,6 +48,15 @@ public abstract class BaseJsonMessageReader implements MessageReader<InputStream
     return reader.mergeRepeatedFrom(prototype, parser);
   }
 
+  /**
+   * Open a cursor over the next array of the parser, consuming the end of the enclosing objects of the envelope once
+   * the array ends.
+   */
+  protected <T extends Builder> RootCursor<T> arrayCursor(T prototype, JsonParser parser, int enclosingObjects)
+      throws IOException {
+    return reader.mergeRepeatedCursor(prototype, parser, enclosingObjects);
+  }
+
   protected void mergeObject(Builder builder, JsonParser parser) throws IOException {
     reader.mergeFrom(builder, parser);
   }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Holds the output of a generator so the encoder can pass it on, and flush the underlying stream, at the end of the
+ * first root message after at least the threshold number of bytes have been written since the last flush.
+ * <p>
+ * Jackson generators buffer a fixed amount of output before writing it through, so counting at the underlying stream
+ * could not see a threshold smaller than that buffer. Bytes are counted here after the encoder has moved the
+ * generator's buffer into this stream instead. Explicit flushes of the generator still flush everything through.
+ */
+class FlushingOutputStream extends OutputStream {
+  private final OutputStream out;
+  private final int threshold;
+  private byte[] bytes;
+  private int length;
+  private boolean isHolding;
+
+  FlushingOutputStream(OutputStream out, int threshold) {
+    this.out = out;
+    this.threshold = threshold;
+    this.bytes = new byte[Math.max(Math.min(threshold, 8192), 16)];
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureCapacity(length + 1);
+    bytes[length++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    ensureCapacity(length + len);
+    System.arraycopy(b, off, bytes, length, len);
+    length += len;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (!isHolding) {
+      out.write(bytes, 0, length);
+      length = 0;
+      out.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+    out.close();
+  }
+
+  /**
+   * Move the output buffered by the generator into this stream, then flush it through if the threshold is reached.
+   */
+  void flushPastThreshold(JsonGenerator generator) throws IOException {
+    isHolding = true;
+    try {
+      generator.flush();
+    }
+    finally {
+      isHolding = false;
+    }
+    if (length >= threshold) {
+      flush();
+    }
+  }
+
+  private void ensureCapacity(int required) {
+    if (required > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, required));
+    }
+  }
+}
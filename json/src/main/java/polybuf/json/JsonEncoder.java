@@ -20,19 +20,44 @@ package polybuf.json;
 import java.io.IOException;
 
 import polybuf.core.Encoder;
+import polybuf.core.util.Base64Codec;
+import polybuf.core.util.FloatingPointFormatter;
+import polybuf.core.util.UnsignedLongFormatter;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.primitives.UnsignedLong;
+import com.google.protobuf.ByteString;
 
 /**
  * Base JSON encoder.
- * 
+ * <p>
+ * Finite floating point values are written as the shortest decimal string that round trips to the same value, see
+ * {@link FloatingPointFormatter}. Non-finite values are left to the generator.
+ * <p>
+ * Binary values are Base64 encoded a chunk at a time straight from the {@link ByteString}, in the generator's default
+ * variant, and written as raw string content, so the bytes are never copied into a single array.
  */
 public abstract class JsonEncoder implements Encoder {
+  // binary values are Base64 encoded this many bytes at a time, must be a multiple of 3
+  private final static int base64ChunkSize = 3 * 1024;
   protected final JsonGenerator generator;
+  private final char[] numberBuffer = new char[FloatingPointFormatter.MAX_DOUBLE_LENGTH];
+  private byte[] base64Bytes;
+  // room for the quotes around the encoded value
+  private char[] base64Chars;
+  // null unless the encoder flushes at root boundaries
+  private final FlushingOutputStream flushingStream;
 
   protected JsonEncoder(JsonGenerator generator) {
+    this(generator, null);
+  }
+
+  /**
+   * Encoder whose generator writes to the flushing stream, which is flushed at the end of repeated roots.
+   */
+  JsonEncoder(JsonGenerator generator, FlushingOutputStream flushingStream) {
     this.generator = generator;
+    this.flushingStream = flushingStream;
   }
 
   @Override
@@ -63,6 +88,9 @@ public abstract class JsonEncoder implements Encoder {
   @Override
   public void endRepeatedRoot(String messageName) throws IOException {
     generator.writeEndObject();
+    if (flushingStream != null) {
+      flushingStream.flushPastThreshold(generator);
+    }
   }
 
   @Override
@@ -92,18 +120,25 @@ public abstract class JsonEncoder implements Encoder {
 
   @Override
   public void scalarField(String fieldName, UnsignedLong fieldValue) throws IOException {
+    scalarUnsignedField(fieldName, fieldValue.longValue());
+  }
+
+  @Override
+  public void scalarUnsignedField(String fieldName, long fieldValue) throws IOException {
     generator.writeFieldName(fieldName);
-    generator.writeNumber(fieldValue.bigIntegerValue());
+    writeUnsignedNumber(fieldValue);
   }
 
   @Override
   public void scalarField(String fieldName, float fieldValue) throws IOException {
-    generator.writeNumberField(fieldName, fieldValue);
+    generator.writeFieldName(fieldName);
+    writeNumber(fieldValue);
   }
 
   @Override
   public void scalarField(String fieldName, double fieldValue) throws IOException {
-    generator.writeNumberField(fieldName, fieldValue);
+    generator.writeFieldName(fieldName);
+    writeNumber(fieldValue);
   }
 
   @Override
@@ -111,6 +146,12 @@ public abstract class JsonEncoder implements Encoder {
     generator.writeStringField(fieldName, fieldValue);
   }
 
+  @Override
+  public void scalarField(String fieldName, ByteString fieldValue) throws IOException {
+    generator.writeFieldName(fieldName);
+    writeBinary(fieldValue);
+  }
+
   @Override
   public void repeatedScalarField(String fieldName, boolean fieldValue) throws IOException {
     generator.writeBoolean(fieldValue);
@@ -128,21 +169,136 @@ public abstract class JsonEncoder implements Encoder {
 
   @Override
   public void repeatedScalarField(String fieldName, UnsignedLong fieldValue) throws IOException {
-    generator.writeNumber(fieldValue.bigIntegerValue());
+    writeUnsignedNumber(fieldValue.longValue());
+  }
+
+  @Override
+  public void repeatedScalarUnsignedField(String fieldName, long fieldValue) throws IOException {
+    writeUnsignedNumber(fieldValue);
   }
 
   @Override
   public void repeatedScalarField(String fieldName, float fieldValue) throws IOException {
-    generator.writeNumber(fieldValue);
+    writeNumber(fieldValue);
   }
 
   @Override
   public void repeatedScalarField(String fieldName, double fieldValue) throws IOException {
-    generator.writeNumber(fieldValue);
+    writeNumber(fieldValue);
   }
 
   @Override
   public void repeatedScalarField(String fieldName, String fieldValue) throws IOException {
     generator.writeString(fieldValue);
   }
+
+  @Override
+  public void repeatedScalarField(String fieldName, ByteString fieldValue) throws IOException {
+    writeBinary(fieldValue);
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, int[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      generator.writeNumber(fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, long[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      generator.writeNumber(fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarUnsignedField(String fieldName, long[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      writeUnsignedNumber(fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, float[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      writeNumber(fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, double[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      writeNumber(fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, boolean[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      generator.writeBoolean(fieldValues[i]);
+    }
+  }
+
+  private void writeUnsignedNumber(long value) throws IOException {
+    if (value >= 0) {
+      generator.writeNumber(value);
+    }
+    else {
+      int end = UnsignedLongFormatter.format(value, numberBuffer, 0);
+      generator.writeRawValue(numberBuffer, 0, end);
+    }
+  }
+
+  // the first chunk starts the string value so the generator adds any separator, the rest are written raw
+  private void writeBinary(ByteString value) throws IOException {
+    int size = value.size();
+    if (size == 0) {
+      generator.writeString("");
+      return;
+    }
+    if (base64Bytes == null) {
+      base64Bytes = new byte[base64ChunkSize];
+      base64Chars = new char[Base64Codec.encodedLength(base64ChunkSize) + 2];
+    }
+    for (int offset = 0; offset < size; offset += base64ChunkSize) {
+      int length = Math.min(base64ChunkSize, size - offset);
+      value.copyTo(base64Bytes, offset, 0, length);
+      int start = 0;
+      if (offset == 0) {
+        base64Chars[start++] = '"';
+      }
+      int end = Base64Codec.encode(base64Bytes, 0, length, base64Chars, start);
+      if (offset + length == size) {
+        base64Chars[end++] = '"';
+      }
+      if (offset == 0) {
+        generator.writeRawValue(base64Chars, 0, end);
+      }
+      else {
+        generator.writeRaw(base64Chars, 0, end);
+      }
+    }
+  }
+
+  private void writeNumber(float value) throws IOException {
+    if (Float.isNaN(value) || Float.isInfinite(value)) {
+      // let the generator decide how to represent these
+      generator.writeNumber(value);
+    }
+    else {
+      int end = FloatingPointFormatter.format(value, numberBuffer, 0);
+      generator.writeRawValue(numberBuffer, 0, end);
+    }
+  }
+
+  private void writeNumber(double value) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      generator.writeNumber(value);
+    }
+    else {
+      int end = FloatingPointFormatter.format(value, numberBuffer, 0);
+      generator.writeRawValue(numberBuffer, 0, end);
+    }
+  }
+
 }
@@ -37,6 +37,7 @@ public abstract class JsonEncoderFactory implements EncoderFactory<OutputStream>
   }
 
   private final JsonFactory factory;
+  private final int flushThreshold;
 
   /**
    * Encoder using the default JSON Factory.
@@ -49,10 +50,29 @@ public abstract class JsonEncoderFactory implements EncoderFactory<OutputStream>
    * Encoder using the specified JSON factory.
    */
   public JsonEncoderFactory(JsonFactory factory) {
-    this.factory = factory;
+    this(factory, 0);
+  }
+
+  /**
+   * Encoder using the specified JSON factory, or the default one if {@code null}, that flushes the output stream at
+   * the end of a repeated root once at least {@code flushThreshold} bytes have been written since the last flush.
+   * This keeps the output of long root lists moving, e.g. when
+   * {@linkplain polybuf.core.ExplicitMessageWriter#writeTo(String, java.util.Iterator, Object) streaming} them to a
+   * socket. A threshold of zero or less only flushes at the end of each root message or list.
+   */
+  public JsonEncoderFactory(JsonFactory factory, int flushThreshold) {
+    this.factory = factory != null ? factory : noCloseFactory;
+    this.flushThreshold = flushThreshold;
   }
 
   protected JsonGenerator generator(OutputStream stream) throws IOException {
     return factory.createJsonGenerator(stream);
   }
+
+  /**
+   * Wrap the stream for an encoder that flushes at root boundaries, or return {@code null} if there is no threshold.
+   */
+  FlushingOutputStream flushingStream(OutputStream stream) {
+    return flushThreshold > 0 ? new FlushingOutputStream(stream, flushThreshold) : null;
+  }
 }
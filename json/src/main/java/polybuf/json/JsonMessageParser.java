@@ -51,6 +51,8 @@ class JsonMessageParser {
   private void parseMessageFields() throws IOException {
     assertCurrentToken(START_OBJECT);
     for (JsonToken token = parser.nextToken(); FIELD_NAME == token; token = parser.nextToken()) {
+      // Jackson canonicalizes names so the same instance is seen for every occurrence, which lets the
+      // config resolve it by identity
       String name = parser.getCurrentName();
       parser.nextToken();
       parseFieldValue(name, StructureContext.OBJECT);
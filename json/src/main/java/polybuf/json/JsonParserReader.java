@@ -25,7 +25,8 @@ import java.util.LinkedList;
 import java.util.List;
 
 import polybuf.core.BuilderStack;
-import polybuf.core.MessageReader;
+import polybuf.core.RootCursor;
+import polybuf.core.StreamingMessageReader;
 import polybuf.core.config.ReaderConfig;
 
 import com.fasterxml.jackson.core.JsonFactory;
@@ -33,7 +34,7 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.google.protobuf.Message.Builder;
 
-public class JsonParserReader implements MessageReader<JsonParser> {
+public class JsonParserReader implements StreamingMessageReader<JsonParser> {
   private static final JsonFactory jsonFactory = new JsonFactory();
 
   private final ReaderConfig config;
@@ -85,19 +86,31 @@ public class JsonParserReader implements MessageReader<JsonParser> {
 
   @Override
   public <T extends Builder> List<T> mergeRepeatedFrom(T prototype, JsonParser input) throws IOException {
-    expectNextToken(input, START_ARRAY);
     List<T> builders = new LinkedList<T>();
-    BuilderStack stack = config.builderStack(new JsonScalarParser());
-    for (JsonToken token = input.nextToken(); END_ARRAY != token; token = input.nextToken()) {
-      expectCurrentToken(input, START_OBJECT);
-      @SuppressWarnings("unchecked")
-      T builder = (T) prototype.clone();
-      stack.pushRootBuilder(builder);
-      new JsonMessageParser(stack, input).parse();
-      stack.popRootBuilder();
+    JsonRootCursor<T> cursor = mergeRepeatedCursor(prototype, input, 0);
+    for (T builder = cursor.parseNext(); builder != null; builder = cursor.parseNext()) {
       builders.add(builder);
     }
-    expectCurrentToken(input, END_ARRAY);
     return builders;
   }
+
+  @Override
+  public RootCursor<Builder> mergeRepeatedRootsCursor(JsonParser input) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public <T extends Builder> RootCursor<T> mergeRepeatedCursor(T prototype, JsonParser input) throws IOException {
+    return mergeRepeatedCursor(prototype, input, 0);
+  }
+
+  /**
+   * Open a cursor over the next array of the input. Once the array ends, the cursor also consumes the end of the
+   * specified number of enclosing objects.
+   */
+  <T extends Builder> JsonRootCursor<T> mergeRepeatedCursor(T prototype, JsonParser input, int enclosingObjects)
+      throws IOException {
+    expectNextToken(input, START_ARRAY);
+    return new JsonRootCursor<T>(input, config.builderStack(new JsonScalarParser()), prototype, enclosingObjects);
+  }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.json;
+
+import static com.fasterxml.jackson.core.JsonToken.*;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import polybuf.core.BuilderStack;
+import polybuf.core.ParseException;
+import polybuf.core.RootCursor;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.protobuf.Message.Builder;
+
+/**
+ * Cursor over a JSON array of messages, positioned after the {@code '['}. Each message is parsed with the same parser
+ * and builder stack, when it is requested.
+ * 
+ * @param <T> builder type
+ */
+class JsonRootCursor<T extends Builder> implements RootCursor<T> {
+  private final JsonParser parser;
+  private final BuilderStack stack;
+  private final T prototype;
+  // objects enclosing the array, closed once the array ends, e.g. 1 for the NamedJson envelope
+  private final int enclosingObjects;
+  private T next;
+  private boolean isDone;
+
+  JsonRootCursor(JsonParser parser, BuilderStack stack, T prototype, int enclosingObjects) {
+    this.parser = parser;
+    this.stack = stack;
+    this.prototype = prototype;
+    this.enclosingObjects = enclosingObjects;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null && !isDone) {
+      try {
+        next = parseNext();
+      }
+      catch (IOException ex) {
+        throw new ParseException(ex);
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    T result = next;
+    next = null;
+    return result;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void close() throws IOException {
+    isDone = true;
+    next = null;
+    parser.close();
+  }
+
+  /**
+   * Parse the next message, or return {@code null} once the array ends. Unlike {@link #hasNext}, parse and stream
+   * errors are thrown as they are.
+   */
+  T parseNext() throws IOException {
+    JsonToken token = parser.nextToken();
+    if (END_ARRAY == token) {
+      for (int i = 0; i < enclosingObjects; ++i) {
+        JsonParserReader.expectNextToken(parser, END_OBJECT);
+      }
+      isDone = true;
+      return null;
+    }
+    JsonParserReader.expectCurrentToken(parser, START_OBJECT);
+    @SuppressWarnings("unchecked")
+    T builder = (T) prototype.clone();
+    stack.pushRootBuilder(builder);
+    new JsonMessageParser(stack, parser).parse();
+    stack.popRootBuilder();
+    return builder;
+  }
+}
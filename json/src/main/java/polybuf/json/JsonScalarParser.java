@@ -18,6 +18,7 @@
 package polybuf.json;
 
 import polybuf.core.ScalarParser;
+import polybuf.core.util.CharSequences;
 
 public class JsonScalarParser extends ScalarParser {
 
@@ -36,4 +37,29 @@ public class JsonScalarParser extends ScalarParser {
     return "NaN".equals(string);
   }
 
+  @Override
+  protected boolean isPositiveInfinityLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, "Infinity");
+  }
+
+  @Override
+  protected boolean isNegativeInfinityLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, "-Infinity");
+  }
+
+  @Override
+  protected boolean isNaNLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, "NaN");
+  }
+
+  @Override
+  protected boolean isTrueLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, "true") || CharSequences.contentEquals(chars, "1");
+  }
+
+  @Override
+  protected boolean isFalseLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, "false") || CharSequences.contentEquals(chars, "0");
+  }
+
 }
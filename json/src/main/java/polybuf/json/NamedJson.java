@@ -27,6 +27,7 @@ import java.util.List;
 import polybuf.core.EncoderFactory;
 import polybuf.core.MessageReaderFactory;
 import polybuf.core.ParseException;
+import polybuf.core.RootCursor;
 import polybuf.core.Serializer;
 import polybuf.core.config.ReaderConfig;
 import polybuf.core.config.RootMessage;
@@ -83,6 +84,22 @@ public class NamedJson {
     };
   }
 
+  /**
+   * Encoder factory flushing the output stream as described in
+   * {@link JsonEncoderFactory#JsonEncoderFactory(JsonFactory, int)}. The JSON factory may be {@code null} to use the
+   * default one.
+   */
+  public static EncoderFactory<OutputStream> encoderFactory(JsonFactory jsonFactory, int flushThreshold) {
+    return new JsonEncoderFactory(jsonFactory, flushThreshold) {
+      @Override
+      public polybuf.core.Encoder encoder(OutputStream stream) throws IOException {
+        FlushingOutputStream flushingStream = flushingStream(stream);
+        return flushingStream == null ? new Encoder(generator(stream)) : new Encoder(generator(flushingStream),
+            flushingStream);
+      }
+    };
+  }
+
   public static MessageReaderFactory<InputStream> readerFactory() {
     return new MessageReaderFactory<InputStream>() {
 
@@ -103,6 +120,10 @@ public class NamedJson {
       super(generator);
     }
 
+    private Encoder(JsonGenerator generator, FlushingOutputStream flushingStream) {
+      super(generator, flushingStream);
+    }
+
     /**
      * Starts an object with an array field with the given name, e.g. {@code ' "messageName":['}.
      */
@@ -183,6 +204,22 @@ public class NamedJson {
       return builders;
     }
 
+    @Override
+    public RootCursor<Builder> mergeRepeatedRootsCursor(InputStream stream) throws IOException {
+      JsonParser parser = newJsonParser(stream);
+      expectNextToken(parser, START_OBJECT);
+      Builder prototype = parseRootBuilderField(parser);
+      return arrayCursor(prototype, parser, 1);
+    }
+
+    @Override
+    public <T extends Builder> RootCursor<T> mergeRepeatedCursor(T prototype, InputStream stream) throws IOException {
+      JsonParser parser = newJsonParser(stream);
+      expectNextToken(parser, START_OBJECT);
+      parseName(parser); // ignore and use explicit prototype
+      return arrayCursor(prototype, parser, 1);
+    }
+
     private Builder parseRootBuilderField(JsonParser parser) throws IOException {
       String serializedName = parseName(parser);
       RootMessage root = config().messageForSerializedName(serializedName);
@@ -28,6 +28,7 @@ import java.util.Map;
 import polybuf.core.EncoderFactory;
 import polybuf.core.MessageReaderFactory;
 import polybuf.core.ParseException;
+import polybuf.core.RootCursor;
 import polybuf.core.Serializer;
 import polybuf.core.config.ReaderConfig;
 import polybuf.core.config.RootMessage;
@@ -84,6 +85,22 @@ public class SocketIoEvent {
     };
   }
 
+  /**
+   * Encoder factory flushing the output stream as described in
+   * {@link JsonEncoderFactory#JsonEncoderFactory(JsonFactory, int)}. The JSON factory may be {@code null} to use the
+   * default one.
+   */
+  public static EncoderFactory<OutputStream> encoderFactory(JsonFactory jsonFactory, int flushThreshold) {
+    return new JsonEncoderFactory(jsonFactory, flushThreshold) {
+      @Override
+      public polybuf.core.Encoder encoder(OutputStream stream) throws IOException {
+        FlushingOutputStream flushingStream = flushingStream(stream);
+        return flushingStream == null ? new Encoder(generator(stream)) : new Encoder(generator(flushingStream),
+            flushingStream);
+      }
+    };
+  }
+
   public static MessageReaderFactory<InputStream> readerFactory() {
     return new MessageReaderFactory<InputStream>() {
 
@@ -104,6 +121,10 @@ public class SocketIoEvent {
       super(generator);
     }
 
+    private Encoder(JsonGenerator generator, FlushingOutputStream flushingStream) {
+      super(generator, flushingStream);
+    }
+
     /**
      * Starts an object with name and args fields, e.g. {@code ' "name": "messageName", "args": ['}.
      */
@@ -192,6 +213,24 @@ public class SocketIoEvent {
       return builders;
     }
 
+    @Override
+    public RootCursor<Builder> mergeRepeatedRootsCursor(InputStream stream) throws IOException {
+      JsonParser parser = newJsonParser(stream);
+      expectNextToken(parser, START_OBJECT);
+      Builder prototype = parseNameField(parser);
+      parseArgsName(parser);
+      return arrayCursor(prototype, parser, 1);
+    }
+
+    @Override
+    public <T extends Builder> RootCursor<T> mergeRepeatedCursor(T prototype, InputStream stream) throws IOException {
+      JsonParser parser = newJsonParser(stream);
+      expectNextToken(parser, START_OBJECT);
+      parseName(parser); // ignore and use explicit prototype
+      parseArgsName(parser);
+      return arrayCursor(prototype, parser, 1);
+    }
+
     private Builder parseNameField(JsonParser parser) throws IOException {
       String serializedName = parseName(parser);
 
@@ -213,11 +252,15 @@ public class SocketIoEvent {
     }
 
     private <T extends Builder> List<T> parseArgsField(T prototype, JsonParser parser) throws IOException {
+      parseArgsName(parser);
+      return mergeArray(prototype, parser);
+    }
+
+    private void parseArgsName(JsonParser parser) throws IOException {
       expectNextToken(parser, FIELD_NAME);
       if (!"args".equals(parser.getCurrentName())) {
         throw new ParseException("SocketIO event should have field 'args', instead saw: " + parser.getCurrentName());
       }
-      return mergeArray(prototype, parser);
     }
   }
 }
@@ -1,7 +1,8 @@
 package polybuf.json;
 
+import static org.junit.Assert.fail;
+
 import java.io.ByteArrayInputStream;
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -31,7 +32,7 @@ public class BareJsonSerializerTest extends BaseSerializerTest<InputStream, Outp
   }
 
   private void assertStructuralCompliance(Class<? extends GeneratedMessage> klass, Object goodValue, String goodString)
-      throws IOException {
+      throws Exception {
     Builder builder = Reflection.invokeStaticGetter(klass, "newBuilder", Message.Builder.class);
     Message message = builder.setField(builder.getDescriptorForType().findFieldByNumber(1), goodValue).build();
 
@@ -50,7 +51,7 @@ public class BareJsonSerializerTest extends BaseSerializerTest<InputStream, Outp
     List<Message> empty = new ArrayList<Message>(0);
     assertRepeatedException(builder, in("")); // must be array
     assertRepeatedException(builder, in("null")); // must be array
-    assertParseBoth(empty, builder, in("[]")); // but can be empty
+    assertParseBothAndEncode(empty, builder, in("[]")); // but can be empty
     assertRepeatedException(builder, in("[null]")); // arrays must have message
   }
 
@@ -70,6 +71,16 @@ public class BareJsonSerializerTest extends BaseSerializerTest<InputStream, Outp
     assertParseBothAndEncode(expected, Coverage.Bool.newBuilder(), in("[{`required`: true}, {`required`: false}]"));
   }
 
+  @Test
+  public void malformedListKeepsJacksonException() throws Exception {
+    try {
+      strictSerializer.mergeRepeatedFrom(Coverage.Bool.newBuilder(), in("[{`required`: true}, {`required`: tru"));
+      fail("malformed list");
+    }
+    catch (com.fasterxml.jackson.core.JsonParseException ex) {
+    }
+  }
+
   @Test
   public void messages() throws Exception {
     Coverage.Message expected = Coverage.Message
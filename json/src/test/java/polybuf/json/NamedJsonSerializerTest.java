@@ -1,5 +1,9 @@
 package polybuf.json;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -15,12 +19,14 @@ import org.junit.Test;
 import polybuf.core.BaseSerializerTest;
 import polybuf.core.DefaultStringParserTest;
 import polybuf.core.ParseException;
+import polybuf.core.RootCursor;
 import polybuf.core.StreamHelper;
 import polybuf.core.config.SerializerConfig;
 import polybuf.core.test.Coverage;
 import polybuf.core.util.Reflection;
 
 import com.google.common.base.Charsets;
+import com.google.protobuf.ByteString;
 import com.google.protobuf.GeneratedMessage;
 import com.google.protobuf.Message;
 import com.google.protobuf.Message.Builder;
@@ -84,6 +90,40 @@ public class NamedJsonSerializerTest extends BaseSerializerTest<InputStream, Out
     assertRootParseBothAndEncode(expected, in("{`coverage.Bool`: [{`required`: true}, {`required`: false}]}"));
   }
 
+  @Test
+  public void bytes() throws Exception {
+    byte[] large = new byte[7000]; // several Base64 chunks, with padding
+    for (int i = 0; i < large.length; ++i) {
+      large[i] = (byte) (31 * i);
+    }
+    byte[] small = { 1, 2 };
+    Coverage.Bytes expected = Coverage.Bytes.newBuilder().setRequired(ByteString.copyFrom(large))
+        .addRepeated(ByteString.copyFrom(small)).addRepeated(ByteString.copyFrom(large)).build();
+    InputStream input = in("{`coverage.Bytes`: {`required`: `" + Base64.encodeBase64String(large)
+        + "`, `repeated`: [`" + Base64.encodeBase64String(small) + "`, `" + Base64.encodeBase64String(large) + "`]}}");
+    assertRootParse(expected, input, strict);
+    assertEncode(input, expected);
+    // empty values are written but not read
+    assertEncode(in("{`coverage.Bytes`: {`required`: ``}}"),
+        Coverage.Bytes.newBuilder().setRequired(ByteString.EMPTY).build());
+  }
+
+  @Test
+  public void cursor() throws Exception {
+    RootCursor<Builder> roots = strictSerializer.mergeRepeatedRootsCursor(in(
+        "{`coverage.Bool`: [{`required`: true}, {`required`: false}]}"));
+    assertTrue(roots.hasNext());
+    assertEquals(Coverage.Bool.newBuilder().setRequired(true).build(), roots.next().build());
+    assertEquals(Coverage.Bool.newBuilder().setRequired(false).build(), roots.next().build());
+    assertFalse(roots.hasNext());
+    roots.close();
+
+    RootCursor<Coverage.Bool.Builder> explicit = strictSerializer.mergeRepeatedCursor(Coverage.Bool.newBuilder(),
+        in("{`ignored`: [{`required`: true}]}"));
+    assertTrue(explicit.next().getRequired());
+    assertFalse(explicit.hasNext());
+  }
+
   @Test
   public void messages() throws Exception {
     Coverage.Message expected = Coverage.Message
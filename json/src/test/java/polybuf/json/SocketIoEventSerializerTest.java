@@ -1,8 +1,12 @@
 package polybuf.json;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -14,6 +18,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import polybuf.core.BaseSerializerTest;
+import polybuf.core.ParseException;
+import polybuf.core.RootCursor;
+import polybuf.core.Serializer;
 import polybuf.core.StreamHelper;
 import polybuf.core.config.SerializerConfig;
 import polybuf.core.test.Coverage;
@@ -79,6 +86,62 @@ public class SocketIoEventSerializerTest extends BaseSerializerTest<InputStream,
         in("{`name`: `coverage.Bool`, `args`: [{`required`: true}, {`required`: false}]}"));
   }
 
+  @Test
+  public void cursor() throws Exception {
+    RootCursor<Builder> roots = strictSerializer.mergeRepeatedRootsCursor(in(
+        "{`name`: `coverage.Bool`, `args`: [{`required`: true}, {`required`: false}]}"));
+    assertEquals(Coverage.Bool.newBuilder().setRequired(true).build(), roots.next().build());
+    assertEquals(Coverage.Bool.newBuilder().setRequired(false).build(), roots.next().build());
+    assertFalse(roots.hasNext());
+
+    RootCursor<Coverage.Bool.Builder> explicit = strictSerializer.mergeRepeatedCursor(Coverage.Bool.newBuilder(),
+        in("{`name`: `ignored`, `args`: [{`required`: true}], `extra`: 1}"));
+    assertTrue(explicit.next().getRequired());
+    try {
+      explicit.hasNext();
+      fail("envelope must end after args");
+    }
+    catch (ParseException ex) {
+    }
+  }
+
+  @Test
+  public void streamedList() throws Exception {
+    List<Coverage.Bool> expected = new ArrayList<Coverage.Bool>();
+    for (int i = 0; i < 1000; ++i) {
+      expected.add(Coverage.Bool.newBuilder().setRequired(i % 2 == 0).build());
+    }
+    ByteArrayOutputStream listed = new ByteArrayOutputStream();
+    strictSerializer.writeTo("coverage.Bool", expected, listed);
+
+    // sizes of the output at each flush
+    final List<Integer> flushes = new ArrayList<Integer>();
+    ByteArrayOutputStream streamed = new ByteArrayOutputStream() {
+      @Override
+      public void flush() {
+        flushes.add(size());
+      }
+    };
+    // well below the buffer of the jackson generator
+    int threshold = 64;
+    Serializer<InputStream, OutputStream> serializer = new Serializer<InputStream, OutputStream>(
+        SerializerConfig.of(Coverage.class), SocketIoEvent.readerFactory(), SocketIoEvent.encoderFactory(null,
+            threshold));
+    serializer.writeTo("coverage.Bool", expected.iterator(), streamed);
+
+    assertEquals(listed.toString("UTF-8"), streamed.toString("UTF-8"));
+    assertEquals(streamed.size(), (int) flushes.get(flushes.size() - 1));
+    // every flush but the last is at the first root boundary past the threshold
+    int maxRootLength = "{\"required\":false},".length();
+    int flushed = 0;
+    for (int size : flushes.subList(0, flushes.size() - 1)) {
+      assertTrue(size - flushed >= threshold);
+      assertTrue(size - flushed < threshold + maxRootLength);
+      flushed = size;
+    }
+    assertTrue(flushes.size() > streamed.size() / (threshold + maxRootLength));
+  }
+
   @Test
   public void messages() throws Exception {
     Coverage.Message expected = Coverage.Message
@@ -19,11 +19,17 @@ package polybuf.xml;
 
 import java.io.IOException;
 
+import org.apache.commons.codec.binary.Base64;
+
 import polybuf.core.Encoder;
+import polybuf.core.util.FloatingPointFormatter;
+import polybuf.core.util.UnsignedLongFormatter;
 
 import com.google.common.primitives.UnsignedLong;
+import com.google.protobuf.ByteString;
 
 public abstract class BaseXmlEncoder implements Encoder {
+  private final char[] numberBuffer = new char[FloatingPointFormatter.MAX_DOUBLE_LENGTH];
 
   @Override
   public void startRootList(String messageName) throws IOException {
@@ -52,17 +58,32 @@ public abstract class BaseXmlEncoder implements Encoder {
 
   @Override
   public void scalarField(String fieldName, int fieldValue) throws IOException {
-    scalarField(fieldName, String.valueOf(fieldValue));
+    scalarField(fieldName, (long) fieldValue);
   }
 
   @Override
   public void scalarField(String fieldName, long fieldValue) throws IOException {
-    scalarField(fieldName, String.valueOf(fieldValue));
+    int end;
+    if (fieldValue < 0) {
+      // negating Long.MIN_VALUE gives itself, which is still the right magnitude when treated as unsigned
+      numberBuffer[0] = '-';
+      end = UnsignedLongFormatter.format(-fieldValue, numberBuffer, 1);
+    }
+    else {
+      end = UnsignedLongFormatter.format(fieldValue, numberBuffer, 0);
+    }
+    scalarField(fieldName, numberBuffer, 0, end);
   }
 
   @Override
   public void scalarField(String fieldName, UnsignedLong fieldValue) throws IOException {
-    scalarField(fieldName, fieldValue.toString());
+    scalarUnsignedField(fieldName, fieldValue.longValue());
+  }
+
+  @Override
+  public void scalarUnsignedField(String fieldName, long fieldValue) throws IOException {
+    int end = UnsignedLongFormatter.format(fieldValue, numberBuffer, 0);
+    scalarField(fieldName, numberBuffer, 0, end);
   }
 
   @Override
@@ -77,7 +98,8 @@ public abstract class BaseXmlEncoder implements Encoder {
       scalarField(fieldName, XmlScalarParser.NaN);
     }
     else {
-      scalarField(fieldName, String.valueOf(fieldValue));
+      int end = FloatingPointFormatter.format(fieldValue, numberBuffer, 0);
+      scalarField(fieldName, numberBuffer, 0, end);
     }
   }
 
@@ -93,10 +115,24 @@ public abstract class BaseXmlEncoder implements Encoder {
       scalarField(fieldName, XmlScalarParser.NaN);
     }
     else {
-      scalarField(fieldName, String.valueOf(fieldValue));
+      int end = FloatingPointFormatter.format(fieldValue, numberBuffer, 0);
+      scalarField(fieldName, numberBuffer, 0, end);
     }
   }
 
+  @Override
+  public void scalarField(String fieldName, ByteString fieldValue) throws IOException {
+    scalarField(fieldName, Base64.encodeBase64String(fieldValue.toByteArray()));
+  }
+
+  /**
+   * Write a scalar field whose content is a range of characters. The characters are only valid for the duration of
+   * the call. The default implementation creates a string and delegates to {@link #scalarField(String, String)}.
+   */
+  protected void scalarField(String fieldName, char[] chars, int offset, int length) throws IOException {
+    scalarField(fieldName, new String(chars, offset, length));
+  }
+
   @Override
   public void repeatedScalarField(String fieldName, boolean fieldValue) throws IOException {
     scalarField(fieldName, fieldValue);
@@ -117,6 +153,11 @@ public abstract class BaseXmlEncoder implements Encoder {
     scalarField(fieldName, fieldValue);
   }
 
+  @Override
+  public void repeatedScalarUnsignedField(String fieldName, long fieldValue) throws IOException {
+    scalarUnsignedField(fieldName, fieldValue);
+  }
+
   @Override
   public void repeatedScalarField(String fieldName, float fieldValue) throws IOException {
     scalarField(fieldName, fieldValue);
@@ -132,4 +173,51 @@ public abstract class BaseXmlEncoder implements Encoder {
     scalarField(fieldName, fieldValue);
   }
 
+  @Override
+  public void repeatedScalarField(String fieldName, ByteString fieldValue) throws IOException {
+    scalarField(fieldName, fieldValue);
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, int[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      scalarField(fieldName, (long) fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, long[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      scalarField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarUnsignedField(String fieldName, long[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      scalarUnsignedField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, float[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      scalarField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, double[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      scalarField(fieldName, fieldValues[i]);
+    }
+  }
+
+  @Override
+  public void repeatedScalarField(String fieldName, boolean[] fieldValues, int length) throws IOException {
+    for (int i = 0; i < length; ++i) {
+      scalarField(fieldName, fieldValues[i]);
+    }
+  }
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.xml;
+
+import java.io.IOException;
+
+import com.google.protobuf.Message.Builder;
+
+/**
+ * Callback receiving each root of a list as soon as its end tag has been parsed.
+ * <p>
+ * Listeners let large batches of roots be processed while only holding a single root in memory.
+ * 
+ * @see XmlMessageReader#mergeRepeatedRootsFrom(java.io.InputStream, RootListener)
+ * @see XmlReaderHandler#XmlReaderHandler(polybuf.core.BuilderStack, Builder, RootListener)
+ */
+public interface RootListener<T extends Builder> {
+
+  /**
+   * Called with each completed root, in document order.
+   * 
+   * @throws IOException to abort parsing, the exception is rethrown by the reader
+   */
+  void root(T root) throws IOException;
+}
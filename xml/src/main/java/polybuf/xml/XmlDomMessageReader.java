@@ -18,25 +18,32 @@
 package polybuf.xml;
 
 import java.io.IOException;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
-import org.xml.sax.helpers.AttributesImpl;
 
 import polybuf.core.BuilderStack;
 import polybuf.core.MessageReader;
 import polybuf.core.ParseException;
+import polybuf.core.ScalarContext;
+import polybuf.core.StructureContext;
 import polybuf.core.config.ReaderConfig;
+import polybuf.core.util.CharSequences;
 
 import com.google.protobuf.Descriptors.FieldDescriptor;
 import com.google.protobuf.Message.Builder;
 
+/**
+ * XML reader for DOM nodes.
+ * <p>
+ * Nodes are walked directly into a {@link BuilderStack}, applying the same rules as {@link XmlReaderHandler}. Text
+ * node values are parsed without copying. {@link #mergeFrom} populates the provided builder in place, so on a parse
+ * error the builder may be left partially merged.
+ */
 public class XmlDomMessageReader implements MessageReader<Node> {
-  private final static AttributesImpl noAttributes = new AttributesImpl();
   private final ReaderConfig config;
+  private final XmlScalarParser scalarParser = new XmlScalarParser();
 
   public XmlDomMessageReader(ReaderConfig config) {
     this.config = config;
@@ -44,102 +51,138 @@ public class XmlDomMessageReader implements MessageReader<Node> {
 
   @Override
   public Builder mergeRootFrom(Node node) throws IOException {
-    return parse(node, (Builder) null);
+    return mergeRoot(node, builderStack(), null);
   }
 
   @Override
   public List<Builder> mergeRepeatedRootsFrom(Node parent) throws IOException {
-    return parse(parent.getChildNodes(), (Builder) null);
+    BuilderStack builderStack = builderStack();
+    List<Builder> roots = new LinkedList<Builder>();
+    for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (isRoot(child)) {
+        roots.add(mergeRoot(child, builderStack, null));
+      }
+    }
+    return roots;
   }
 
   @Override
   public void mergeFrom(Builder builder, Node node) throws IOException {
-    Builder parsed = parse(node, builder);
-    if (parsed == null) {
-      return;
-    }
-    for (Map.Entry<FieldDescriptor, Object> e : parsed.getAllFields().entrySet()) {
-      builder.setField(e.getKey(), e.getValue());
-    }
+    mergeRoot(node, builderStack(), builder);
   }
 
   @Override
   public <T extends Builder> List<T> mergeRepeatedFrom(T prototype, Node parent) throws IOException {
-    return parse(parent.getChildNodes(), prototype);
-  }
-
-  private Builder parse(Node node, Builder rootOverride) throws IOException {
-    try {
-      BuilderStack builderStack = config.builderStack(new XmlScalarParser());
-      XmlReaderHandler handler = new XmlReaderHandler(builderStack, rootOverride);
-      handler.startDocument();
-      parse(node, handler);
-      handler.endDocument();
-      List<Builder> builders = handler.getRoots();
-      if (builders.size() == 0) {
-        return null;
-      }
-      if (builders.size() == 1) {
-        return builders.get(0);
+    BuilderStack builderStack = builderStack();
+    List<T> roots = new LinkedList<T>();
+    for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (isRoot(child)) {
+        @SuppressWarnings("unchecked")
+        // clone of the prototype
+        T root = (T) prototype.clone();
+        mergeRoot(child, builderStack, root);
+        roots.add(root);
       }
-      throw new ParseException("multiple messages seen where 1 expected");
-    }
-    catch (SAXException ex) {
-      throw new SaxParseException(ex);
     }
+    return roots;
   }
 
-  private <T extends Builder> List<T> parse(NodeList nodes, T rootOverride) throws IOException {
-    try {
-      BuilderStack builderStack = config.builderStack(new XmlScalarParser());
-      XmlReaderHandler handler = new XmlReaderHandler(builderStack, rootOverride);
-      handler.startDocument();
-      parse(nodes, handler);
-      handler.endDocument();
-      @SuppressWarnings("unchecked")
-      // should all be instances of T
-      List<T> roots = (List<T>) handler.getRoots();
-      return roots;
-    }
-    catch (SAXException ex) {
-      throw new SaxParseException(ex);
+  private BuilderStack builderStack() {
+    return config.builderStack(scalarParser);
+  }
+
+  // whitespace, comments and such may separate the roots
+  private boolean isRoot(Node node) {
+    switch (node.getNodeType()) {
+    case Node.ELEMENT_NODE:
+      return true;
+    case Node.TEXT_NODE:
+    case Node.CDATA_SECTION_NODE:
+      if (!CharSequences.isIgnorableWhitespace(node.getNodeValue())) {
+        throw new ParseException("invalid element type");
+      }
+      return false;
+    default:
+      return false;
     }
   }
 
-  private void parse(Node node, XmlReaderHandler handler) throws IOException, SAXException {
+  /**
+   * Merge the root element into the builder, or into a new builder determined by the element name if {@code builder}
+   * is {@code null}.
+   */
+  private Builder mergeRoot(Node node, BuilderStack builderStack, Builder builder) {
     if (node.getNodeType() != Node.ELEMENT_NODE) {
       throw new ParseException("invalid element type");
     }
     // ignore attributes, assume they are xmlns or such
-
-    String qName = ""; // we know it isn't used so don't bother making it
-    handler.startElement(node.getNamespaceURI(), node.getLocalName(), qName, noAttributes);
-
-    String text = singleChildText(node);
-    if (text != null) {
-      handler.characters(text.toCharArray(), 0, text.length());
+    String serializedName = node.getLocalName();
+    builderStack.clear();
+    if (builder == null) {
+      builderStack.pushRoot(serializedName);
     }
     else {
-      parse(node.getChildNodes(), handler);
+      builderStack.pushRootBuilder(builder);
     }
-
-    handler.endElement(node.getNamespaceURI(), node.getLocalName(), qName);
+    CharSequence content = mergeChildren(node, builderStack);
+    if (content != null && !CharSequences.isIgnorableWhitespace(content)) {
+      throw new ParseException("Cannot provide content to root");
+    }
+    return builder == null ? builderStack.popRoot(serializedName) : builderStack.popRootBuilder();
   }
 
-  private void parse(NodeList nodes, XmlReaderHandler handler) throws IOException, SAXException {
-    for (int i = 0; i < nodes.getLength(); ++i) {
-      parse(nodes.item(i), handler);
+  private void mergeField(Node node, BuilderStack builderStack) {
+    String serializedName = node.getLocalName();
+    builderStack.pushField(serializedName, StructureContext.UNSPECIFIED);
+    CharSequence content = mergeChildren(node, builderStack);
+
+    // see XmlReaderHandler#endElement
+    if (FieldDescriptor.Type.MESSAGE.equals(builderStack.getCurrentFieldType())
+        && (content == null || CharSequences.isIgnorableWhitespace(content))) {
+      builderStack.popField(serializedName);
+    }
+    else {
+      builderStack.popField(serializedName, content, ScalarContext.UNSPECIFIED);
     }
   }
 
-  private String singleChildText(Node node) {
-    if (node.hasChildNodes() && node.getChildNodes().getLength() == 1) {
-      Node child = node.getFirstChild();
-      if (child.getNodeType() == Node.TEXT_NODE) {
-        return child.getNodeValue();
+  /**
+   * Merge the child elements as fields and return the text content, or {@code null} if there is none. Whitespace
+   * between child elements is not content.
+   */
+  private CharSequence mergeChildren(Node node, BuilderStack builderStack) {
+    CharSequence text = null;
+    StringBuilder joined = null;
+    boolean hasElements = false;
+    for (Node child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+      switch (child.getNodeType()) {
+      case Node.ELEMENT_NODE:
+        hasElements = true;
+        mergeField(child, builderStack);
+        break;
+      case Node.TEXT_NODE:
+      case Node.CDATA_SECTION_NODE:
+        String value = child.getNodeValue();
+        if (text == null) {
+          text = value;
+        }
+        else {
+          // text split by comments or CDATA sections
+          if (joined == null) {
+            joined = new StringBuilder(text);
+            text = joined;
+          }
+          joined.append(value);
+        }
+        break;
+      default:
+        // comments and processing instructions are ignored
+        break;
       }
     }
-    return null;
+    if (text == null || text.length() == 0 || (hasElements && CharSequences.isIgnorableWhitespace(text))) {
+      return null;
+    }
+    return text;
   }
-
 }
@@ -19,6 +19,7 @@ package polybuf.xml;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -54,9 +55,23 @@ public class XmlMessageReader implements MessageReader<InputStream> {
     return builders.get(0);
   }
 
+  /**
+   * Parse the roots enclosed by the document element, e.g. {@code <roots>}. The wrapper element name is ignored.
+   */
   @Override
   public List<Builder> mergeRepeatedRootsFrom(InputStream stream) throws IOException {
-    throw new UnsupportedOperationException();
+    Collector<Builder> roots = new Collector<Builder>();
+    mergeRepeatedRootsFrom(stream, roots);
+    return roots.roots;
+  }
+
+  /**
+   * Parse the roots enclosed by the document element, passing each to the listener as soon as it has been parsed.
+   * <p>
+   * Unlike {@link #mergeRepeatedRootsFrom(InputStream)}, only one root is held in memory at a time.
+   */
+  public void mergeRepeatedRootsFrom(InputStream stream, RootListener<Builder> listener) throws IOException {
+    parse(stream, null, listener);
   }
 
   @Override
@@ -74,22 +89,65 @@ public class XmlMessageReader implements MessageReader<InputStream> {
     }
   }
 
+  /**
+   * Parse the roots enclosed by the document element as messages of the prototype's type. The wrapper element name is
+   * ignored.
+   */
   @Override
   public <T extends Builder> List<T> mergeRepeatedFrom(T prototype, InputStream stream) throws IOException {
-    throw new UnsupportedOperationException();
+    Collector<T> roots = new Collector<T>();
+    mergeRepeatedFrom(prototype, stream, roots);
+    return roots.roots;
+  }
+
+  /**
+   * Parse the roots enclosed by the document element as messages of the prototype's type, passing each to the listener
+   * as soon as it has been parsed.
+   */
+  public <T extends Builder> void mergeRepeatedFrom(T prototype, InputStream stream, final RootListener<T> listener)
+      throws IOException {
+    parse(stream, prototype, new RootListener<Builder>() {
+
+      @Override
+      public void root(Builder root) throws IOException {
+        @SuppressWarnings("unchecked")
+        // clones of the prototype
+        T typed = (T) root;
+        listener.root(typed);
+      }
+    });
   }
 
   private List<Builder> parse(InputStream stream, Builder rootOverride) throws IOException {
+    return parse(stream, rootOverride, null);
+  }
+
+  private List<Builder> parse(InputStream stream, Builder rootOverride, RootListener<Builder> listener)
+      throws IOException {
     try {
       XMLReader reader = XMLReaderFactory.createXMLReader();
-      XmlReaderHandler handler = new XmlReaderHandler(config.builderStack(new XmlScalarParser()), rootOverride);
+      XmlReaderHandler handler = new XmlReaderHandler(config.builderStack(new XmlScalarParser()), rootOverride,
+          listener);
       reader.setContentHandler(handler);
       reader.setErrorHandler(handler);
       reader.parse(new InputSource(stream));
       return handler.getRoots();
     }
     catch (SAXException ex) {
+      if (ex.getException() instanceof IOException) {
+        // thrown by the listener
+        throw (IOException) ex.getException();
+      }
       throw new SaxParseException(ex);
     }
   }
+
+  private static class Collector<T extends Builder> implements RootListener<T> {
+    private final List<T> roots = new LinkedList<T>();
+
+    @Override
+    public void root(T root) {
+      roots.add(root);
+    }
+  }
 }
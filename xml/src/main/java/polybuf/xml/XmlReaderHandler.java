@@ -38,13 +38,18 @@ import com.google.protobuf.Message.Builder;
 
 /**
  * A {@link DefaultHandler} that can be used to populate a {@link BuilderStack}
- * 
+ * <p>
+ * Handlers created with a {@link RootListener} parse a list of roots enclosed by a single wrapper element, e.g.
+ * {@code <roots>}, whose name is ignored. Each root is handed to the listener as soon as its end tag is seen and is
+ * not retained by the handler.
  */
 public class XmlReaderHandler extends DefaultHandler {
   private final ContentBuffer content = new ContentBuffer();
   private final BuilderStack builderStack;
   private final Builder overrideRoot;
   private final List<Builder> roots = new LinkedList<Builder>();
+  private final RootListener<Builder> listener;
+  private boolean inRootList;
   private SaxParseException fatalException;
 
   /**
@@ -57,13 +62,27 @@ public class XmlReaderHandler extends DefaultHandler {
    * @see ReaderConfig
    */
   public XmlReaderHandler(BuilderStack builderStack, Builder overrideRoot) {
+    this(builderStack, overrideRoot, null);
+  }
+
+  /**
+   * Create a new handler for a wrapped list of roots, passing each root to the listener as it is completed.
+   * 
+   * @param builderStack
+   * @param overrideRoot prototype builder to use for roots or {@code null}
+   * @param listener receives the roots, use {@code null} to collect them for {@link #getRoots()} without expecting a
+   *          wrapper element
+   * @see #XmlReaderHandler(BuilderStack, Builder)
+   */
+  public XmlReaderHandler(BuilderStack builderStack, Builder overrideRoot, RootListener<Builder> listener) {
     assert builderStack.isEmpty();
     this.builderStack = builderStack;
     this.overrideRoot = overrideRoot;
+    this.listener = listener;
   }
 
   /**
-   * Get the list of roots parsed by this handler.
+   * Get the list of roots parsed by this handler. Roots passed to a {@link RootListener} are not included.
    * 
    * @throws IOException A {@link SaxParseException} will wrap any {@link SAXException} fatal errors detected by the
    *           underlying XML parser.
@@ -85,12 +104,17 @@ public class XmlReaderHandler extends DefaultHandler {
     content.clear();
     builderStack.clear();
     roots.clear();
+    inRootList = false;
   }
 
   @Override
   public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
     content.clear();
     String serializedName = serializedElementName(uri, localName, qName);
+    if (builderStack.isEmpty() && listener != null && !inRootList) {
+      inRootList = true;
+      return;
+    }
     if (builderStack.isEmpty() && overrideRoot != null) {
       builderStack.pushRootBuilder(overrideRoot.clone());
     }
@@ -102,7 +126,7 @@ public class XmlReaderHandler extends DefaultHandler {
   @Override
   public void endDocument() throws SAXException {
     content.clear();
-    if (!builderStack.isEmpty()) {
+    if (!builderStack.isEmpty() || inRootList) {
       throw new ParseException("XML document ended, but message not completely built");
     }
   }
@@ -111,6 +135,11 @@ public class XmlReaderHandler extends DefaultHandler {
   public void endElement(String uri, String localName, String qName) throws SAXException {
     CharacterRange contentCharacters = content.getAndClear();
     String serializedName = serializedElementName(uri, localName, qName);
+    if (builderStack.isEmpty() && inRootList) {
+      // closing the wrapper, any content is whitespace between roots
+      inRootList = false;
+      return;
+    }
 
     if (FieldDescriptor.Type.MESSAGE.equals(builderStack.getCurrentFieldType())) {
 
@@ -163,18 +192,35 @@ public class XmlReaderHandler extends DefaultHandler {
         .popRootOrField(serializedName);
 
     if (root != null) {
-      roots.add(root);
+      completed(root);
     }
   }
 
   private void popRootOrField(String serializedName, CharacterRange content, ScalarContext scalarContext)
       throws SAXException {
     if (overrideRoot != null && builderStack.isRootPoppable()) {
-      throw new ParseException("Cannot provide content to overriden root");
+      if (content != null && !content.isIgnorableWhitespace()) {
+        throw new ParseException("Cannot provide content to overriden root");
+      }
+      completed(builderStack.popRootBuilder());
+      return;
     }
     Builder root = builderStack.popRootOrField(serializedName, content, scalarContext);
     if (root != null) {
+      completed(root);
+    }
+  }
+
+  private void completed(Builder root) throws SAXException {
+    if (listener == null) {
       roots.add(root);
+      return;
+    }
+    try {
+      listener.root(root);
+    }
+    catch (IOException ex) {
+      throw new SAXException(ex);
     }
   }
 }
@@ -18,6 +18,7 @@
 package polybuf.xml;
 
 import polybuf.core.ScalarParser;
+import polybuf.core.util.CharSequences;
 
 public class XmlScalarParser extends ScalarParser {
 
@@ -39,4 +40,29 @@ public class XmlScalarParser extends ScalarParser {
   protected boolean isNaNLiteral(String string) {
     return NaN.equals(string);
   }
+
+  @Override
+  protected boolean isPositiveInfinityLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, POSITIVE_INFINITY);
+  }
+
+  @Override
+  protected boolean isNegativeInfinityLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, NEGATIVE_INFINITY);
+  }
+
+  @Override
+  protected boolean isNaNLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, NaN);
+  }
+
+  @Override
+  protected boolean isTrueLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, "true") || CharSequences.contentEquals(chars, "1");
+  }
+
+  @Override
+  protected boolean isFalseLiteral(CharSequence chars) {
+    return CharSequences.contentEquals(chars, "false") || CharSequences.contentEquals(chars, "0");
+  }
 }
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.xml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import polybuf.core.BuilderStack;
+import polybuf.core.MessageReader;
+import polybuf.core.ParseException;
+import polybuf.core.ScalarContext;
+import polybuf.core.config.ReaderConfig;
+import polybuf.core.util.CharacterRange;
+import polybuf.core.util.ContentBuffer;
+
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message.Builder;
+
+/**
+ * XML stream reader pulling StAX events into a {@link BuilderStack}.
+ * <p>
+ * This accepts the same documents as {@link XmlMessageReader}, but avoids its per message setup: all readers share one
+ * pre-configured {@link XMLInputFactory} and each thread reuses its builder stack and text buffer across messages.
+ * Element text is copied once into that buffer and parsed in place. DTDs and external entities are not supported.
+ * 
+ * @see XmlStream#staxReaderFactory()
+ */
+public class XmlStaxMessageReader implements MessageReader<InputStream> {
+  private final static XMLInputFactory inputFactory = newInputFactory();
+  private final ReaderConfig config;
+  private final XmlScalarParser scalarParser = new XmlScalarParser();
+  private final ThreadLocal<State> states = new ThreadLocal<State>() {
+    @Override
+    protected State initialValue() {
+      return new State();
+    }
+  };
+
+  public XmlStaxMessageReader(ReaderConfig config) {
+    this.config = config;
+  }
+
+  private static XMLInputFactory newInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+  @Override
+  public Builder mergeRootFrom(InputStream stream) throws IOException {
+    Collector<Builder> roots = new Collector<Builder>();
+    parse(stream, null, roots, false);
+    if (roots.roots.size() == 0) {
+      return null;
+    }
+    if (roots.roots.size() > 1) {
+      throw new ParseException("multiple messages seen where 1 expected");
+    }
+    return roots.roots.get(0);
+  }
+
+  /**
+   * Parse the roots enclosed by the document element, e.g. {@code <roots>}. The wrapper element name is ignored.
+   */
+  @Override
+  public List<Builder> mergeRepeatedRootsFrom(InputStream stream) throws IOException {
+    Collector<Builder> roots = new Collector<Builder>();
+    mergeRepeatedRootsFrom(stream, roots);
+    return roots.roots;
+  }
+
+  /**
+   * Parse the roots enclosed by the document element, passing each to the listener as soon as it has been parsed.
+   * 
+   * @see XmlMessageReader#mergeRepeatedRootsFrom(InputStream, RootListener)
+   */
+  public void mergeRepeatedRootsFrom(InputStream stream, RootListener<Builder> listener) throws IOException {
+    parse(stream, null, listener, true);
+  }
+
+  @Override
+  public void mergeFrom(Builder builder, InputStream stream) throws IOException {
+    Collector<Builder> roots = new Collector<Builder>();
+    parse(stream, builder, roots, false);
+    if (roots.roots.size() == 0) {
+      return; // leave builder unchanged
+    }
+    if (roots.roots.size() > 1) {
+      throw new ParseException("multiple messages seen where 1 expected");
+    }
+    for (Map.Entry<FieldDescriptor, Object> e : roots.roots.get(0).getAllFields().entrySet()) {
+      builder.setField(e.getKey(), e.getValue());
+    }
+  }
+
+  /**
+   * Parse the roots enclosed by the document element as messages of the prototype's type. The wrapper element name is
+   * ignored.
+   */
+  @Override
+  public <T extends Builder> List<T> mergeRepeatedFrom(T prototype, InputStream stream) throws IOException {
+    Collector<T> roots = new Collector<T>();
+    mergeRepeatedFrom(prototype, stream, roots);
+    return roots.roots;
+  }
+
+  /**
+   * Parse the roots enclosed by the document element as messages of the prototype's type, passing each to the listener
+   * as soon as it has been parsed.
+   */
+  public <T extends Builder> void mergeRepeatedFrom(T prototype, InputStream stream, final RootListener<T> listener)
+      throws IOException {
+    parse(stream, prototype, new RootListener<Builder>() {
+
+      @Override
+      public void root(Builder root) throws IOException {
+        @SuppressWarnings("unchecked")
+        // clones of the prototype
+        T typed = (T) root;
+        listener.root(typed);
+      }
+    }, true);
+  }
+
+  private void parse(InputStream stream, Builder overrideRoot, RootListener<Builder> listener, boolean isRootList)
+      throws IOException {
+    State state = states.get();
+    if (state.isInUse) {
+      // a listener is parsing another document on this thread
+      state = new State();
+    }
+    XMLStreamReader reader = null;
+    state.isInUse = true;
+    try {
+      reader = inputFactory.createXMLStreamReader(stream);
+      state.parse(reader, overrideRoot, listener, isRootList);
+    }
+    catch (XMLStreamException ex) {
+      throw new StaxParseException(ex);
+    }
+    finally {
+      state.isInUse = false;
+      if (reader != null) {
+        try {
+          reader.close();
+        }
+        catch (XMLStreamException ex) {
+          // nothing left to read, ignore
+        }
+      }
+    }
+  }
+
+  private static class Collector<T extends Builder> implements RootListener<T> {
+    private final List<T> roots = new LinkedList<T>();
+
+    @Override
+    public void root(T root) {
+      roots.add(root);
+    }
+  }
+
+  // builder stack and text buffer reused by successive documents parsed on one thread
+  private class State {
+    private final BuilderStack builderStack = config.builderStack(scalarParser);
+    private final ContentBuffer content = new ContentBuffer();
+    private boolean isInUse;
+
+    void parse(XMLStreamReader reader, Builder overrideRoot, RootListener<Builder> listener, boolean isRootList)
+        throws XMLStreamException, IOException {
+      builderStack.clear();
+      content.clear();
+      boolean inRootList = false;
+      boolean seenRoot = false;
+
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+        case XMLStreamConstants.START_ELEMENT:
+          content.clear();
+          if (builderStack.isEmpty()) {
+            if (isRootList && !inRootList) {
+              inRootList = true;
+            }
+            else if (overrideRoot != null) {
+              builderStack.pushRootBuilder(overrideRoot.clone());
+            }
+            else {
+              builderStack.pushRootOrField(reader.getLocalName());
+            }
+          }
+          else {
+            builderStack.pushRootOrField(reader.getLocalName());
+          }
+          break;
+
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          content.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+          break;
+
+        case XMLStreamConstants.END_ELEMENT:
+          if (builderStack.isEmpty()) {
+            // closing the root list wrapper
+            content.clear();
+            inRootList = false;
+            break;
+          }
+          Builder root = endElement(reader.getLocalName(), overrideRoot);
+          if (root != null) {
+            seenRoot = true;
+            listener.root(root);
+          }
+          break;
+
+        default:
+          // comments and processing instructions are ignored
+          break;
+        }
+      }
+      if (!builderStack.isEmpty() || inRootList || (!isRootList && !seenRoot)) {
+        builderStack.clear();
+        throw new ParseException("XML document ended, but message not completely built");
+      }
+    }
+
+    // see XmlReaderHandler#endElement
+    private Builder endElement(String serializedName, Builder overrideRoot) {
+      CharacterRange content = this.content.getAndClear();
+
+      if (FieldDescriptor.Type.MESSAGE.equals(builderStack.getCurrentFieldType())) {
+        if (content == null || content.isIgnorableWhitespace()) {
+          return overrideRoot != null && builderStack.isRootPoppable() ? builderStack.popRootBuilder() : builderStack
+              .popRootOrField(serializedName);
+        }
+        // else drop through to process content, e.g. compatible base64 message bytes
+      }
+      if (overrideRoot != null && builderStack.isRootPoppable()) {
+        if (content != null && !content.isIgnorableWhitespace()) {
+          throw new ParseException("Cannot provide content to overriden root");
+        }
+        return builderStack.popRootBuilder();
+      }
+      return builderStack.popRootOrField(serializedName, content, ScalarContext.UNSPECIFIED);
+    }
+  }
+}
@@ -34,8 +34,12 @@ import polybuf.core.config.SerializerConfig;
  */
 public class XmlStream {
 
+  /**
+   * Factory for encoders writing UTF-8 directly to the stream. Use {@link XmlEncoderFactory} to encode through a JAXP
+   * {@code TransformerHandler} instead.
+   */
   public static EncoderFactory<OutputStream> encoderFactory(String namespaceUri, String namespacePrefix) {
-    return new XmlEncoderFactory(namespaceUri, namespacePrefix);
+    return new XmlUtf8EncoderFactory(namespaceUri, namespacePrefix);
   }
 
   public static MessageReaderFactory<InputStream> readerFactory() {
@@ -48,6 +52,21 @@ public class XmlStream {
     };
   }
 
+  /**
+   * Factory for readers pulling events from a shared StAX input factory.
+   * 
+   * @see XmlStaxMessageReader
+   */
+  public static MessageReaderFactory<InputStream> staxReaderFactory() {
+    return new MessageReaderFactory<InputStream>() {
+
+      @Override
+      public MessageReader<InputStream> reader(ReaderConfig config) {
+        return new XmlStaxMessageReader(config);
+      }
+    };
+  }
+
   public static Serializer<InputStream, OutputStream> serializer(SerializerConfig config, String namespacePrefix) {
     return new Serializer<InputStream, OutputStream>(config, readerFactory(), encoderFactory(config.getNamespaceUri(),
         namespacePrefix));
@@ -24,6 +24,10 @@ import javax.xml.transform.sax.TransformerHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.AttributesImpl;
 
+import polybuf.core.util.Base64Codec;
+
+import com.google.protobuf.ByteString;
+
 /**
  * XML Encoder for streams via a SAX {@link TransformerHandler}.
  * 
@@ -31,10 +35,19 @@ import org.xml.sax.helpers.AttributesImpl;
  */
 public class XmlTransformerEncoder extends BaseXmlEncoder {
   private final static AttributesImpl noAttributes = new AttributesImpl();
+  // binary values are Base64 encoded this many bytes at a time, must be a multiple of 3
+  private final static int base64ChunkSize = 3 * 1024;
+  // unqualified document element wrapping a list of roots
+  private final static String rootListElement = "roots";
   private final TransformerHandler handler;
   private final String namespaceUri;
   private final String namespacePrefix;
   private final String mappedPrefix;
+  private byte[] base64Bytes;
+  // repeated fields write the same element many times in a row so remember the last qualified name
+  private String lastElementName;
+  private String lastQualifiedName;
+  private char[] base64Chars;
 
   public XmlTransformerEncoder(String namespaceUri, String namespacePrefix, TransformerHandler handler)
       throws IOException {
@@ -58,27 +71,39 @@ public class XmlTransformerEncoder extends BaseXmlEncoder {
 
   @Override
   public void startRootList(String messageName) throws IOException {
-    throw new UnsupportedOperationException();
+    startDocument();
+    try {
+      handler.startElement("", rootListElement, rootListElement, noAttributes);
+    }
+    catch (SAXException ex) {
+      throw new SaxParseException(ex);
+    }
   }
 
   @Override
   public void endRootList(String messageName) throws IOException {
-    throw new UnsupportedOperationException();
+    try {
+      handler.endElement("", rootListElement, rootListElement);
+    }
+    catch (SAXException ex) {
+      throw new SaxParseException(ex);
+    }
+    endDocument();
   }
 
   @Override
   public void startRepeatedRoot(String messageName) throws IOException {
-    throw new UnsupportedOperationException();
+    startElement(messageName);
   }
 
   @Override
   public void endRepeatedRoot(String messageName) throws IOException {
-    throw new UnsupportedOperationException();
+    endElement(messageName);
   }
 
   private void startElement(String elementName) throws IOException {
     try {
-      handler.startElement(namespaceUri, elementName, namespacePrefix + elementName, noAttributes);
+      handler.startElement(namespaceUri, elementName, qualifiedName(elementName), noAttributes);
     }
     catch (SAXException ex) {
       throw new SaxParseException(ex);
@@ -87,13 +112,21 @@ public class XmlTransformerEncoder extends BaseXmlEncoder {
 
   private void endElement(String elementName) throws IOException {
     try {
-      handler.endElement(namespaceUri, elementName, namespacePrefix + elementName);
+      handler.endElement(namespaceUri, elementName, qualifiedName(elementName));
     }
     catch (SAXException ex) {
       throw new SaxParseException(ex);
     }
   }
 
+  private String qualifiedName(String elementName) {
+    if (elementName != lastElementName) {
+      lastElementName = elementName;
+      lastQualifiedName = namespacePrefix.length() == 0 ? elementName : namespacePrefix + elementName;
+    }
+    return lastQualifiedName;
+  }
+
   private void startDocument() throws IOException {
     try {
       handler.startDocument();
@@ -115,10 +148,14 @@ public class XmlTransformerEncoder extends BaseXmlEncoder {
   }
 
   private void characters(String content) throws IOException {
+    // TODO use something else to avoid copy
+    char[] chars = content.toCharArray();
+    characters(chars, 0, chars.length);
+  }
+
+  private void characters(char[] chars, int offset, int length) throws IOException {
     try {
-      // TODO use something else to avoid copy
-      char[] chars = content.toCharArray();
-      handler.characters(chars, 0, chars.length);
+      handler.characters(chars, offset, length);
     }
     catch (SAXException ex) {
       throw new SaxParseException(ex);
@@ -164,4 +201,31 @@ public class XmlTransformerEncoder extends BaseXmlEncoder {
     endElement(fieldName);
   }
 
+  @Override
+  public void scalarField(String fieldName, ByteString fieldValue) throws IOException {
+    startElement(fieldName);
+    base64Characters(fieldValue);
+    endElement(fieldName);
+  }
+
+  private void base64Characters(ByteString value) throws IOException {
+    if (base64Bytes == null) {
+      base64Bytes = new byte[base64ChunkSize];
+      base64Chars = new char[Base64Codec.encodedLength(base64ChunkSize)];
+    }
+    int size = value.size();
+    for (int offset = 0; offset < size; offset += base64ChunkSize) {
+      int length = Math.min(base64ChunkSize, size - offset);
+      value.copyTo(base64Bytes, offset, 0, length);
+      int end = Base64Codec.encode(base64Bytes, 0, length, base64Chars, 0);
+      characters(base64Chars, 0, end);
+    }
+  }
+
+  @Override
+  protected void scalarField(String fieldName, char[] chars, int offset, int length) throws IOException {
+    startElement(fieldName);
+    characters(chars, offset, length);
+    endElement(fieldName);
+  }
 }
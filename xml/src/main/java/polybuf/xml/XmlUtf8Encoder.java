@@ -0,0 +1,396 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import polybuf.core.WriteException;
+import polybuf.core.util.Base64Codec;
+
+import com.google.common.base.Charsets;
+import com.google.protobuf.ByteString;
+
+/**
+ * XML encoder writing UTF-8 bytes directly to a stream.
+ * <p>
+ * Produces the same documents as {@link XmlTransformerEncoder} without going through a JAXP serializer. Element tags
+ * are encoded once per name and shared by all encoders created from the same {@link Tags}, and content is escaped
+ * while it is copied into the output buffer.
+ * 
+ * @see XmlUtf8EncoderFactory
+ */
+public class XmlUtf8Encoder extends BaseXmlEncoder {
+  private final static byte[] declaration = bytes("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+  // unqualified document element wrapping a list of roots, see XmlTransformerEncoder
+  private final static byte[] rootListOpen = bytes("<roots");
+  private final static byte[] rootListClose = bytes("</roots>");
+  // binary values are Base64 encoded this many bytes at a time, must be a multiple of 3
+  private final static int base64ChunkSize = 3 * 1024;
+  // room for the longest escape, e.g. &#65535;
+  private final static int maxCharBytes = 8;
+  private final OutputStream stream;
+  private final Tags tags;
+  private final byte[] buffer = new byte[8192];
+  private int position;
+  // start tags are left open so elements without content can be written as <name/>
+  private boolean isStartTagOpen;
+  // repeated fields write the same element many times in a row so remember the last tag
+  private String lastElementName;
+  private Tag lastTag;
+  private byte[] base64Bytes;
+  private char[] base64Chars;
+
+  /**
+   * Shared cache of encoded tags for a namespace prefix.
+   */
+  public static final class Tags {
+    private final String prefix;
+    private final byte[] namespaceDeclaration;
+    private final ConcurrentMap<String, Tag> tags = new ConcurrentHashMap<String, Tag>();
+
+    /**
+     * @param namespaceUri Namespace uri declared on the document element, use {@code null} or empty for no namespace.
+     * @param namespacePrefix Prefix for the namespace, use {@code null} or empty for the default namespace.
+     */
+    public Tags(String namespaceUri, String namespacePrefix) {
+      if (namespaceUri == null) {
+        namespaceUri = "";
+      }
+      if (namespacePrefix == null) {
+        namespacePrefix = "";
+      }
+      if (namespaceUri.length() == 0 && namespacePrefix.length() != 0) {
+        throw new IllegalArgumentException("namespace prefix must be empty or null when namespace uri is empty or null");
+      }
+      this.prefix = namespacePrefix.length() == 0 ? "" : namespacePrefix + ":";
+      if (namespaceUri.length() == 0) {
+        this.namespaceDeclaration = new byte[0];
+      }
+      else {
+        String attribute = namespacePrefix.length() == 0 ? " xmlns" : " xmlns:" + namespacePrefix;
+        this.namespaceDeclaration = bytes(attribute + "=\"" + escapeAttribute(namespaceUri) + "\"");
+      }
+    }
+
+    Tag tag(String elementName) {
+      Tag tag = tags.get(elementName);
+      if (tag == null) {
+        tag = new Tag(prefix + elementName);
+        Tag existing = tags.putIfAbsent(elementName, tag);
+        if (existing != null) {
+          tag = existing;
+        }
+      }
+      return tag;
+    }
+  }
+
+  static final class Tag {
+    // start tag without the closing '>'
+    final byte[] open;
+    final byte[] close;
+
+    Tag(String qualifiedName) {
+      this.open = bytes("<" + qualifiedName);
+      this.close = bytes("</" + qualifiedName + ">");
+    }
+  }
+
+  public XmlUtf8Encoder(Tags tags, OutputStream stream) {
+    this.tags = tags;
+    this.stream = stream;
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(Charsets.UTF_8);
+  }
+
+  private static String escapeAttribute(String value) {
+    return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+  }
+
+  private Tag tag(String elementName) {
+    if (elementName != lastElementName) {
+      lastElementName = elementName;
+      lastTag = tags.tag(elementName);
+    }
+    return lastTag;
+  }
+
+  @Override
+  public void startRootList(String messageName) throws IOException {
+    write(declaration);
+    write(rootListOpen);
+    write(tags.namespaceDeclaration);
+    isStartTagOpen = true;
+  }
+
+  @Override
+  public void endRootList(String messageName) throws IOException {
+    if (isStartTagOpen) {
+      writeEmptyTagEnd();
+    }
+    else {
+      write(rootListClose);
+    }
+    flush();
+  }
+
+  @Override
+  public void startRootMessage(String messageName) throws IOException {
+    write(declaration);
+    write(tag(messageName).open);
+    write(tags.namespaceDeclaration);
+    isStartTagOpen = true;
+  }
+
+  @Override
+  public void endRootMessage(String messageName) throws IOException {
+    endElement(messageName);
+    flush();
+  }
+
+  @Override
+  public void startRepeatedRoot(String messageName) throws IOException {
+    startElement(messageName);
+  }
+
+  @Override
+  public void endRepeatedRoot(String messageName) throws IOException {
+    endElement(messageName);
+  }
+
+  @Override
+  public void startMessageField(String fieldName) throws IOException {
+    startElement(fieldName);
+  }
+
+  @Override
+  public void endMessageField(String fieldName) throws IOException {
+    endElement(fieldName);
+  }
+
+  @Override
+  public void startRepeatedMessageField(String fieldName) throws IOException {
+    startElement(fieldName);
+  }
+
+  @Override
+  public void endRepeatedMessageField(String fieldName) throws IOException {
+    endElement(fieldName);
+  }
+
+  @Override
+  public void scalarField(String fieldName, String fieldValue) throws IOException {
+    startElement(fieldName);
+    int length = fieldValue.length();
+    if (length > 0) {
+      closeStartTag();
+      for (int i = 0; i < length; ++i) {
+        if (position + maxCharBytes > buffer.length) {
+          flushBuffer();
+        }
+        char c = fieldValue.charAt(i);
+        if (c < 0x80 && !needsEscape(c)) {
+          buffer[position++] = (byte) c;
+        }
+        else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(fieldValue.charAt(i + 1))) {
+          writeCodePoint(Character.toCodePoint(c, fieldValue.charAt(++i)));
+        }
+        else {
+          writeChar(c);
+        }
+      }
+    }
+    endElement(fieldName);
+  }
+
+  @Override
+  protected void scalarField(String fieldName, char[] chars, int offset, int length) throws IOException {
+    // formatted numbers are always plain ASCII
+    startElement(fieldName);
+    if (length > 0) {
+      closeStartTag();
+      writeAscii(chars, offset, length);
+    }
+    endElement(fieldName);
+  }
+
+  @Override
+  public void scalarField(String fieldName, ByteString fieldValue) throws IOException {
+    startElement(fieldName);
+    int size = fieldValue.size();
+    if (size > 0) {
+      closeStartTag();
+      if (base64Bytes == null) {
+        base64Bytes = new byte[base64ChunkSize];
+        base64Chars = new char[Base64Codec.encodedLength(base64ChunkSize)];
+      }
+      for (int offset = 0; offset < size; offset += base64ChunkSize) {
+        int length = Math.min(base64ChunkSize, size - offset);
+        fieldValue.copyTo(base64Bytes, offset, 0, length);
+        int end = Base64Codec.encode(base64Bytes, 0, length, base64Chars, 0);
+        writeAscii(base64Chars, 0, end);
+      }
+    }
+    endElement(fieldName);
+  }
+
+  private void startElement(String elementName) throws IOException {
+    closeStartTag();
+    write(tag(elementName).open);
+    isStartTagOpen = true;
+  }
+
+  private void endElement(String elementName) throws IOException {
+    if (isStartTagOpen) {
+      writeEmptyTagEnd();
+    }
+    else {
+      write(tag(elementName).close);
+    }
+  }
+
+  private void closeStartTag() throws IOException {
+    if (isStartTagOpen) {
+      if (position == buffer.length) {
+        flushBuffer();
+      }
+      buffer[position++] = '>';
+      isStartTagOpen = false;
+    }
+  }
+
+  private void writeEmptyTagEnd() throws IOException {
+    if (position + 2 > buffer.length) {
+      flushBuffer();
+    }
+    buffer[position++] = '/';
+    buffer[position++] = '>';
+    isStartTagOpen = false;
+  }
+
+  private static boolean needsEscape(char c) {
+    return c == '<' || c == '>' || c == '&' || (c < 0x20 && c != '\t' && c != '\n');
+  }
+
+  // caller ensures maxCharBytes are available
+  private void writeChar(char c) {
+    switch (c) {
+    case '<':
+      writeEscape('l', 't');
+      break;
+    case '>':
+      writeEscape('g', 't');
+      break;
+    case '&':
+      buffer[position++] = '&';
+      buffer[position++] = 'a';
+      buffer[position++] = 'm';
+      buffer[position++] = 'p';
+      buffer[position++] = ';';
+      break;
+    default:
+      if (c < 0x20) {
+        // control characters, notably '\r', would not survive parsing as literals
+        buffer[position++] = '&';
+        buffer[position++] = '#';
+        if (c >= 10) {
+          buffer[position++] = (byte) ('0' + c / 10);
+        }
+        buffer[position++] = (byte) ('0' + c % 10);
+        buffer[position++] = ';';
+      }
+      else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+        // unpaired surrogates can't be encoded, the transformer based encoder fails on them too
+        throw new WriteException("invalid UTF-16 surrogate " + Integer.toHexString(c));
+      }
+      else {
+        writeCodePoint(c);
+      }
+    }
+  }
+
+  private void writeEscape(char first, char second) {
+    buffer[position++] = '&';
+    buffer[position++] = (byte) first;
+    buffer[position++] = (byte) second;
+    buffer[position++] = ';';
+  }
+
+  // caller ensures maxCharBytes are available
+  private void writeCodePoint(int codePoint) {
+    if (codePoint < 0x80) {
+      buffer[position++] = (byte) codePoint;
+    }
+    else if (codePoint < 0x800) {
+      buffer[position++] = (byte) (0xc0 | (codePoint >> 6));
+      buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+    }
+    else if (codePoint < 0x10000) {
+      buffer[position++] = (byte) (0xe0 | (codePoint >> 12));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+      buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+    }
+    else {
+      buffer[position++] = (byte) (0xf0 | (codePoint >> 18));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+      buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+      buffer[position++] = (byte) (0x80 | (codePoint & 0x3f));
+    }
+  }
+
+  // characters must not need escaping
+  private void writeAscii(char[] chars, int offset, int length) throws IOException {
+    int end = offset + length;
+    while (offset < end) {
+      if (position == buffer.length) {
+        flushBuffer();
+      }
+      int n = Math.min(end - offset, buffer.length - position);
+      for (int i = 0; i < n; ++i) {
+        buffer[position++] = (byte) chars[offset++];
+      }
+    }
+  }
+
+  private void write(byte[] bytes) throws IOException {
+    if (position + bytes.length > buffer.length) {
+      flushBuffer();
+      if (bytes.length > buffer.length) {
+        stream.write(bytes);
+        return;
+      }
+    }
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  private void flushBuffer() throws IOException {
+    stream.write(buffer, 0, position);
+    position = 0;
+  }
+
+  private void flush() throws IOException {
+    flushBuffer();
+    stream.flush();
+  }
+}
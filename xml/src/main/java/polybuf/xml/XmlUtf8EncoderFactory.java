@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2012 Michael Groble
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE
+ * WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS
+ * OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package polybuf.xml;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import polybuf.core.Encoder;
+import polybuf.core.EncoderFactory;
+
+/**
+ * Factory for encoders writing UTF-8 XML directly to streams.
+ * <p>
+ * Encoded element tags are cached by the factory and shared by all of its encoders.
+ * 
+ * @see XmlUtf8Encoder
+ * @see XmlEncoderFactory
+ */
+public class XmlUtf8EncoderFactory implements EncoderFactory<OutputStream> {
+  private final XmlUtf8Encoder.Tags tags;
+
+  public XmlUtf8EncoderFactory(String namespaceUri, String namespacePrefix) {
+    this.tags = new XmlUtf8Encoder.Tags(namespaceUri, namespacePrefix);
+  }
+
+  @Override
+  public Encoder encoder(OutputStream stream) throws IOException {
+    return new XmlUtf8Encoder(tags, stream);
+  }
+}
@@ -178,6 +178,21 @@ public class XmlDomSerializerTest extends BaseSerializerTest<Node,Node> {
      .toString()));
   }
 
+  @Test
+  public void mergeFromIndented() throws Exception {
+    setUriAndPrefix("","");
+    Coverage.Bool.Builder builder = Coverage.Bool.newBuilder().setOptional(true);
+    strictSerializer.mergeFrom(builder, 
+        in(new StringBuilder("<coverage.Bool>\n")
+        .append(  "  <required>true</required>\n")
+        .append(  "  <!-- comment -->\n")
+        .append(  "  <repeated>false</repeated>\n")
+        .append("</coverage.Bool>")
+     .toString()));
+    assertEquals(Coverage.Bool.newBuilder().setRequired(true).setOptional(true).addRepeated(false).build(),
+        builder.build());
+  }
+
   protected Node in(String input) throws Exception {
     DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
     factory.setNamespaceAware(true);
@@ -1,10 +1,14 @@
 package polybuf.xml;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.commons.codec.binary.Base64;
@@ -14,6 +18,7 @@ import polybuf.core.BaseSerializerTest;
 import polybuf.core.DefaultStringParserTest;
 import polybuf.core.ParseException;
 import polybuf.core.StreamHelper;
+import polybuf.core.WriteException;
 import polybuf.core.config.SerializerConfig;
 import polybuf.core.test.Coverage;
 
@@ -58,9 +63,86 @@ public class XmlSerializerTest extends BaseSerializerTest<InputStream,OutputStre
   }
   
   @Test
-  public void unsupportedRootArray() throws Exception {
+  public void emptyRootArray() throws Exception {
     setRegistry(null,null);
-    assertRepeatedRootUnsupported(in("<roots></roots>"));
+    assertEquals(0, buildRepeatedRoot(in("<roots></roots>"), strict).size());
+    assertRepeatedRootException(in("<roots>"));
+  }
+  
+  @Test
+  public void boolsList() throws Exception {
+    setRegistry(null,null);
+    List<Coverage.Bool> expected = Arrays.asList(
+        Coverage.Bool.newBuilder().setRequired(true).build(),
+        Coverage.Bool.newBuilder().setRequired(false).build()
+        );
+    InputStream input = in(new StringBuilder("<?xml version=`1.0` encoding=`UTF-8`?>")
+        .append("<roots>")
+        .append(  "<coverage.Bool>")
+        .append(    "<required>true</required>")
+        .append(  "</coverage.Bool>")
+        .append(  "<coverage.Bool>")
+        .append(    "<required>false</required>")
+        .append(  "</coverage.Bool>")
+        .append("</roots>")
+        .toString());
+    assertRootParseBothAndEncode(expected, input);
+    assertParseBoth(expected, Coverage.Bool.newBuilder(), input);
+  }
+  
+  @Test
+  public void boolsListContentInRoot() throws Exception {
+    setRegistry(null,null);
+    InputStream input = in(new StringBuilder("<?xml version=`1.0` encoding=`UTF-8`?>")
+        .append("<roots>")
+        .append(  "<coverage.Bool>")
+        .append(    "<required>true</required>")
+        .append(  "content</coverage.Bool>")
+        .append("</roots>")
+        .toString());
+    assertRepeatedException(Coverage.Bool.newBuilder(), input, strict);
+  }
+  
+  @Test
+  public void boolsListNsUriWithPrefix() throws Exception {
+    String uri = "http://example.com/test";
+    setRegistry(uri,"b");
+    List<Coverage.Bool> expected = Arrays.asList(
+        Coverage.Bool.newBuilder().setRequired(true).build(),
+        Coverage.Bool.newBuilder().setRequired(false).build()
+        );
+    assertRootParseBothAndEncode(expected, 
+        in(new StringBuilder("<?xml version=`1.0` encoding=`UTF-8`?>")
+          .append("<roots ").append("xmlns:b=`").append(uri).append("`>")
+          .append(  "<b:coverage.Bool>")
+          .append(    "<b:required>true</b:required>")
+          .append(  "</b:coverage.Bool>")
+          .append(  "<b:coverage.Bool>")
+          .append(    "<b:required>false</b:required>")
+          .append(  "</b:coverage.Bool>")
+          .append("</roots>")
+          .toString()));
+  }
+  
+  @Test
+  public void rootListener() throws Exception {
+    XmlMessageReader reader = new XmlMessageReader(SerializerConfig.builder(Coverage.class).build().readerConfig());
+    final List<Message> roots = new ArrayList<Message>();
+    reader.mergeRepeatedRootsFrom(
+        in(new StringBuilder("<batch>")
+          .append(  "<coverage.Bool><required>true</required></coverage.Bool>")
+          .append(  "<coverage.Int32><required>1</required></coverage.Int32>")
+          .append("</batch>")
+          .toString()),
+        new RootListener<Message.Builder>() {
+          @Override
+          public void root(Message.Builder root) {
+            roots.add(root.build());
+          }
+        });
+    assertEquals(Arrays.asList(
+        Coverage.Bool.newBuilder().setRequired(true).build(),
+        Coverage.Int32.newBuilder().setRequired(1).build()), roots);
   }
   
   @Test
@@ -132,6 +214,30 @@ public class XmlSerializerTest extends BaseSerializerTest<InputStream,OutputStre
     setRegistry(null,"b");
   }
   
+  @Test
+  public void escapedString() throws Exception {
+    setRegistry(null,null);
+    Coverage.String1 expected = Coverage.String1.newBuilder().setRequired("a<b>&c\u00e9\u20ac\ud83d\ude00").build();
+    assertRootParseBothAndEncode(expected, 
+        in(new StringBuilder("<?xml version=`1.0` encoding=`UTF-8`?>")
+          .append("<coverage.String1>")
+          .append(  "<required>a&lt;b&gt;&amp;c\u00e9\u20ac\ud83d\ude00</required>")
+          .append("</coverage.String1>")
+          .toString()));
+  }
+  
+  @Test
+  public void unpairedSurrogate() throws Exception {
+    setRegistry(null,null);
+    Coverage.String1 message = Coverage.String1.newBuilder().setRequired("a\ud800b").build();
+    try {
+      strictSerializer.writeTo(message, new ByteArrayOutputStream());
+      fail("unpaired surrogate");
+    }
+    catch (WriteException ex) {
+    }
+  }
+
   @Test
   public void messages() throws Exception {
     setRegistry(null,null);
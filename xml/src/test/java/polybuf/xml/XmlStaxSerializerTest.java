@@ -0,0 +1,55 @@
+package polybuf.xml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import polybuf.core.Serializer;
+import polybuf.core.config.SerializerConfig;
+import polybuf.core.test.Coverage;
+
+import com.google.protobuf.Message;
+
+/**
+ * Runs the stream tests against the StAX reader.
+ */
+public class XmlStaxSerializerTest extends XmlSerializerTest {
+
+  @Override
+  public void setRegistry(String namespaceUri, String prefix) throws Exception {
+    SerializerConfig strictConfig = SerializerConfig.builder(Coverage.class).setIsStrict(true)
+        .setNamespaceUri(namespaceUri).build();
+    SerializerConfig compatibleConfig = SerializerConfig.builder(Coverage.class).setIsStrict(false)
+        .setNamespaceUri(namespaceUri).build();
+    strictSerializer = new Serializer<InputStream, OutputStream>(strictConfig, XmlStream.staxReaderFactory(),
+        XmlStream.encoderFactory(strictConfig.getNamespaceUri(), prefix));
+    compatibleSerializer = new Serializer<InputStream, OutputStream>(compatibleConfig, XmlStream.staxReaderFactory(),
+        XmlStream.encoderFactory(compatibleConfig.getNamespaceUri(), prefix));
+  }
+
+  @Test
+  public void nestedParseInListener() throws Exception {
+    final XmlStaxMessageReader reader = new XmlStaxMessageReader(SerializerConfig.builder(Coverage.class).build()
+        .readerConfig());
+    final List<Message> roots = new ArrayList<Message>();
+    reader.mergeRepeatedRootsFrom(
+        in("<roots><coverage.Bool><required>true</required></coverage.Bool></roots>"),
+        new RootListener<Message.Builder>() {
+          @Override
+          public void root(Message.Builder root) throws IOException {
+            roots.add(reader.mergeRootFrom(in("<coverage.Int32><required>1</required></coverage.Int32>")).build());
+            roots.add(root.build());
+          }
+        });
+    assertEquals(Arrays.asList(
+        Coverage.Int32.newBuilder().setRequired(1).build(),
+        Coverage.Bool.newBuilder().setRequired(true).build()), roots);
+  }
+}
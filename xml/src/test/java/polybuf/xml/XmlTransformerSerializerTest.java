@@ -0,0 +1,58 @@
+package polybuf.xml;
+
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+import polybuf.core.Serializer;
+import polybuf.core.config.SerializerConfig;
+import polybuf.core.test.Coverage;
+
+/**
+ * Runs the stream tests against the JAXP transformer encoder.
+ */
+public class XmlTransformerSerializerTest extends XmlSerializerTest {
+
+  @Override
+  public void setRegistry(String namespaceUri, String prefix) throws Exception {
+    SerializerConfig strictConfig = SerializerConfig.builder(Coverage.class).setIsStrict(true)
+        .setNamespaceUri(namespaceUri).build();
+    SerializerConfig compatibleConfig = SerializerConfig.builder(Coverage.class).setIsStrict(false)
+        .setNamespaceUri(namespaceUri).build();
+    strictSerializer = new Serializer<InputStream, OutputStream>(strictConfig, XmlStream.readerFactory(),
+        new XmlEncoderFactory(strictConfig.getNamespaceUri(), prefix));
+    compatibleSerializer = new Serializer<InputStream, OutputStream>(compatibleConfig, XmlStream.readerFactory(),
+        new XmlEncoderFactory(compatibleConfig.getNamespaceUri(), prefix));
+  }
+
+  @Override
+  @Test
+  public void escapedString() throws Exception {
+    setRegistry(null,null);
+    Coverage.String1 expected = Coverage.String1.newBuilder().setRequired("a<b>&c\u00e9\u20ac\ud83d\ude00").build();
+    // the transformer writes supplementary characters as character references
+    assertRootParseBothAndEncode(expected, 
+        in(new StringBuilder("<?xml version=`1.0` encoding=`UTF-8`?>")
+          .append("<coverage.String1>")
+          .append(  "<required>a&lt;b&gt;&amp;c\u00e9\u20ac&#128512;</required>")
+          .append("</coverage.String1>")
+          .toString()));
+  }
+
+  @Override
+  @Test
+  public void unpairedSurrogate() throws Exception {
+    setRegistry(null,null);
+    Coverage.String1 message = Coverage.String1.newBuilder().setRequired("a\ud800b").build();
+    try {
+      strictSerializer.writeTo(message, new ByteArrayOutputStream());
+      fail("unpaired surrogate");
+    }
+    catch (SaxParseException ex) {
+    }
+  }
+}